@@ -0,0 +1,134 @@
+package com.openclassrooms.p6.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.feed.ArticleSummary;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.model.Comments;
+import com.openclassrooms.p6.model.Subscriptions;
+import com.openclassrooms.p6.model.Themes;
+import com.openclassrooms.p6.model.Users;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+import com.openclassrooms.p6.repository.projection.UserAuthState;
+import com.openclassrooms.p6.service.AuthService;
+import com.openclassrooms.p6.service.UserService;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+/**
+ * Data shared by the benchmarks, shaped like the responses of the API.
+ */
+final class BenchmarkFixtures {
+
+    static final String JWT_SECRET = "ThisIsMySuperSecretKeyThatIsLongEnoughToBeSafe1234567890abcDEF!!";
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds a {@link JwtUtil} outside of Spring, with or without its cache of
+     * verified tokens.
+     */
+    static JwtUtil jwtUtil(boolean cacheVerifiedTokens) {
+        CacheManager cacheManager = cacheVerifiedTokens
+                ? new CaffeineCacheManager(CacheConfig.VERIFIED_TOKENS_CACHE)
+                : new NoOpCacheManager();
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKeyString", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "cacheManager", cacheManager);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    /**
+     * Builds an {@link AuthService} finding the authorization state of the
+     * user in memory, as on a hit of its cache.
+     */
+    static AuthService authService(long userId) {
+        Optional<UserAuthState> userAuthState = Optional.of(new UserAuthState(userId, null));
+        UserService userService = new UserService() {
+            @Override
+            public Optional<UserAuthState> getUserAuthState(Long id) {
+                return userAuthState;
+            }
+        };
+
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "userService", userService);
+        return authService;
+    }
+
+    static Users user(long id) {
+        Users user = new Users();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@mdd.fr");
+        return user;
+    }
+
+    static Articles article(long id) {
+        Themes theme = new Themes();
+        theme.setId(id % 10);
+        theme.setTitle("Theme " + theme.getId());
+
+        Articles article = new Articles();
+        article.setId(id);
+        article.setUser(user(id % 50));
+        article.setUserId(article.getUser().getId());
+        article.setTheme(theme);
+        article.setThemeId(theme.getId());
+        article.setTitle("Article " + id);
+        article.setDescription("Description de l'article " + id + ", sur quelques lignes.");
+        article.setCreatedAt(NOW.minusMinutes(id));
+        return article;
+    }
+
+    static List<ArticleSummaryView> articleSummaries(int count) {
+        List<ArticleSummaryView> summaries = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            summaries.add(new ArticleSummary(id, "Article " + id,
+                    "Description de l'article " + id + ", sur quelques lignes.",
+                    NOW.minusMinutes(id), "user" + id % 50));
+        }
+        return summaries;
+    }
+
+    static List<Comments> comments(long articleId, int count) {
+        List<Comments> comments = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Comments comment = new Comments();
+            comment.setId(id);
+            comment.setArticleId(articleId);
+            comment.setUser(user(id % 50));
+            comment.setUserId(comment.getUser().getId());
+            comment.setComment("Commentaire " + id + " sur l'article " + articleId);
+            comment.setCreatedAt(NOW.plusMinutes(id));
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    static List<Subscriptions> subscriptions(long userId, int count) {
+        List<Subscriptions> subscriptions = new ArrayList<>(count);
+        for (long themeId = 1; themeId <= count; themeId++) {
+            Subscriptions subscription = new Subscriptions();
+            subscription.setId(themeId);
+            subscription.setUserId(userId);
+            subscription.setThemeId(themeId);
+            subscription.setIsSubscribed(themeId % 3 != 0);
+            subscriptions.add(subscription);
+        }
+        return subscriptions;
+    }
+}
@@ -0,0 +1,71 @@
+package com.openclassrooms.p6.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.mapper.ArticleMapper;
+import com.openclassrooms.p6.mapper.ArticleMapperImpl;
+import com.openclassrooms.p6.mapper.CommentMapperImpl;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.payload.response.ArticleSummaryResponse;
+import com.openclassrooms.p6.payload.response.CommentResponse;
+import com.openclassrooms.p6.payload.response.MultipleArticlesResponse;
+import com.openclassrooms.p6.payload.response.SingleArticleResponse;
+
+/**
+ * Jackson serialization of the article list and of the article detail, with
+ * an {@link ObjectMapper} configured like the one of Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private MultipleArticlesResponse articles;
+
+    private SingleArticleResponse article;
+
+    @Setup
+    public void setUp() {
+        ArticleMapper articleMapper = new ArticleMapperImpl();
+        articles = new MultipleArticlesResponse(
+                articleMapper.toDtoArticleSummaries(BenchmarkFixtures.articleSummaries(100)));
+
+        Articles entity = BenchmarkFixtures.article(1L);
+        ArticleSummaryResponse summary = articleMapper.toDtoArticle(entity);
+        List<CommentResponse> comments = new ArrayList<>();
+        new CommentMapperImpl().toDtoComments(BenchmarkFixtures.comments(1L, 20)).forEach(comments::add);
+        article = new SingleArticleResponse(entity.getId(), summary.username(), summary.publicationDate(),
+                entity.getTheme().getTitle(), summary.title(), summary.description(), comments, 20, null);
+    }
+
+    @Benchmark
+    public byte[] multipleArticlesResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(articles);
+    }
+
+    @Benchmark
+    public byte[] singleArticleResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(article);
+    }
+}
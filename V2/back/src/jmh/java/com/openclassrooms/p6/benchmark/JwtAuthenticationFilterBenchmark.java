@@ -0,0 +1,125 @@
+package com.openclassrooms.p6.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.openclassrooms.p6.configuration.JwtAuthenticationFilter;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import jakarta.servlet.ServletException;
+
+/**
+ * Authentication of a request by {@link JwtAuthenticationFilter}, with its
+ * debug event enabled or not, logged through the {@code logback-spring.xml} of
+ * the application ({@code async}: sampling filter and asynchronous appender)
+ * or straight to its console appender ({@code sync}). The console is replaced
+ * by a stream discarding its output, so the encoding of the events is
+ * measured but not the terminal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean debugLogging;
+
+    @Param({ "async", "sync" })
+    public String appenders;
+
+    private JwtAuthenticationFilter filter;
+
+    private String authorizationHeader;
+
+    private LoggingSystem loggingSystem;
+
+    private PrintStream systemOut;
+
+    @Setup
+    public void setUp() {
+        systemOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("logging.async.queue-size", "8192")
+                .withProperty("logging.request.sampling-rate", "1");
+        loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        loggingSystem.beforeInitialize();
+        loggingSystem.initialize(new LoggingInitializationContext(environment), "classpath:logback-spring.xml", null);
+
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        if ("sync".equals(appenders)) {
+            // Même encodeur, appelé par le thread de la requête
+            AsyncAppender asyncConsole = (AsyncAppender) root.getAppender("ASYNC_CONSOLE");
+            Appender<ILoggingEvent> console = asyncConsole.getAppender("CONSOLE");
+            asyncConsole.detachAppender(console);
+            root.detachAppender(asyncConsole);
+            asyncConsole.stop();
+            root.addAppender(console);
+        }
+        loggerContext.getLogger(JwtAuthenticationFilter.class).setLevel(debugLogging ? Level.DEBUG : Level.INFO);
+
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil(true);
+        filter = new JwtAuthenticationFilter(jwtUtil, BenchmarkFixtures.authService(42L));
+        authorizationHeader = "Bearer " + jwtUtil.generateJwtToken(42L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggingSystem.cleanUp();
+        System.setOut(systemOut);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/articles/feed");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse anonymousRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,60 @@
+package com.openclassrooms.p6.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.p6.utils.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Verification of the token of every authenticated request, with and without
+ * the cache of verified tokens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil cachingJwtUtil;
+
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = BenchmarkFixtures.jwtUtil(true);
+        jwtUtil = BenchmarkFixtures.jwtUtil(false);
+        token = jwtUtil.generateJwtToken(42L);
+    }
+
+    @Benchmark
+    public Optional<Claims> parseVerifiedClaims() {
+        return jwtUtil.parseVerifiedClaims(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> parseVerifiedClaimsCached() {
+        return cachingJwtUtil.parseVerifiedClaims(token);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtil.generateJwtToken(42L);
+    }
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.p6.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.p6.mapper.ArticleMapper;
+import com.openclassrooms.p6.mapper.ArticleMapperImpl;
+import com.openclassrooms.p6.mapper.CommentMapper;
+import com.openclassrooms.p6.mapper.CommentMapperImpl;
+import com.openclassrooms.p6.mapper.SubscriptionMapper;
+import com.openclassrooms.p6.mapper.SubscriptionMapperImpl;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.model.Comments;
+import com.openclassrooms.p6.model.Subscriptions;
+import com.openclassrooms.p6.payload.response.ArticleSummaryResponse;
+import com.openclassrooms.p6.payload.response.CommentResponse;
+import com.openclassrooms.p6.payload.response.SingleThemeSubscriptionResponse;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+
+/**
+ * MapStruct mappings of the entities and projections to the response DTOs,
+ * sized like a page of the API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private final ArticleMapper articleMapper = new ArticleMapperImpl();
+
+    private final CommentMapper commentMapper = new CommentMapperImpl();
+
+    private final SubscriptionMapper subscriptionMapper = new SubscriptionMapperImpl();
+
+    private Articles article;
+
+    private List<ArticleSummaryView> articleSummaries;
+
+    private List<Comments> comments;
+
+    private List<Subscriptions> subscriptions;
+
+    @Setup
+    public void setUp() {
+        article = BenchmarkFixtures.article(1L);
+        articleSummaries = BenchmarkFixtures.articleSummaries(100);
+        comments = BenchmarkFixtures.comments(1L, 20);
+        subscriptions = BenchmarkFixtures.subscriptions(42L, 30);
+    }
+
+    @Benchmark
+    public ArticleSummaryResponse article() {
+        return articleMapper.toDtoArticle(article);
+    }
+
+    @Benchmark
+    public List<ArticleSummaryResponse> articleSummaries() {
+        return articleMapper.toDtoArticleSummaries(articleSummaries);
+    }
+
+    @Benchmark
+    public Iterable<CommentResponse> comments() {
+        return commentMapper.toDtoComments(comments);
+    }
+
+    @Benchmark
+    public Iterable<SingleThemeSubscriptionResponse> subscriptions() {
+        return subscriptionMapper.toDtoSubscriptions(subscriptions);
+    }
+}
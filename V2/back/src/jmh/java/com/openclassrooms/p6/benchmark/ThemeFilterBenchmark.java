@@ -0,0 +1,76 @@
+package com.openclassrooms.p6.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.p6.utils.SortedLongSet;
+
+/**
+ * Filtering of articles on the subscribed themes of a user, as done in memory
+ * by the feed and the search: a {@code List<Long>} against the
+ * {@link SortedLongSet} kept in the subscriptions cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThemeFilterBenchmark {
+
+    private static final int ARTICLES = 500;
+
+    private static final int THEMES = 200;
+
+    @Param({ "5", "50" })
+    public int subscribedThemes;
+
+    private long[] articleThemeIds;
+
+    private List<Long> subscribedThemeIdList;
+
+    private SortedLongSet subscribedThemeIdSet;
+
+    @Setup
+    public void setUp() {
+        articleThemeIds = LongStream.range(0, ARTICLES).map(i -> (i * 7919) % THEMES).toArray();
+        subscribedThemeIdList = LongStream.range(0, subscribedThemes).map(i -> i * (THEMES / subscribedThemes))
+                .boxed().toList();
+        subscribedThemeIdSet = SortedLongSet.of(subscribedThemeIdList);
+    }
+
+    @Benchmark
+    public int list() {
+        int visible = 0;
+        for (long themeId : articleThemeIds) {
+            if (subscribedThemeIdList.contains(themeId)) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+
+    @Benchmark
+    public int sortedLongSet() {
+        int visible = 0;
+        for (long themeId : articleThemeIds) {
+            if (subscribedThemeIdSet.contains(themeId)) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+}
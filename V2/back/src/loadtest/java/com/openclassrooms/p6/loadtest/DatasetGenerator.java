@@ -0,0 +1,347 @@
+package com.openclassrooms.p6.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Bulk-loads a synthetic dataset, with skewed distributions, through batched
+ * JDBC inserts.
+ *
+ * <p>
+ * The number of subscriptions per user follows a power law, the popularity of
+ * the themes and the activity of the authors are Zipfian, and so is the number
+ * of comments per article. Rows are appended after the existing ones, then the
+ * id sequences of Hibernate are moved past the inserted ids. Every generated
+ * user has the password {@code password}.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dexec.mainClass=com.openclassrooms.p6.loadtest.DatasetGenerator \
+ *     -Dexec.args="--jdbc-url=jdbc:mysql://localhost:3306/MDD?rewriteBatchedStatements=true --users=100000 --articles=1000000"
+ * </pre>
+ */
+public final class DatasetGenerator {
+
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private static final String[] TABLES = { "users", "themes", "subscriptions", "articles", "comments" };
+
+    private static final String[] WORDS = { "java", "spring", "angular", "base", "données", "requête", "cache",
+            "thread", "virtuel", "index", "serveur", "client", "performance", "latence", "article", "thème",
+            "abonnement", "commentaire", "sécurité", "jeton" };
+
+    private final Connection connection;
+    private final SplittableRandom random;
+    private final int batchSize;
+    private final double exponent;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private DatasetGenerator(Connection connection, long seed, int batchSize, double exponent) {
+        this.connection = connection;
+        this.random = new SplittableRandom(seed);
+        this.batchSize = batchSize;
+        this.exponent = exponent;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Options options = new Options(args);
+        String jdbcUrl = options.get("jdbc-url",
+                "jdbc:h2:file:./data/loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;AUTO_SERVER=TRUE");
+
+        try (Connection connection = DriverManager.getConnection(jdbcUrl,
+                options.get("jdbc-user", jdbcUrl.startsWith("jdbc:h2:") ? "sa" : "root"),
+                options.get("jdbc-password", jdbcUrl.startsWith("jdbc:h2:") ? "" : "rootroot"))) {
+            connection.setAutoCommit(false);
+
+            DatasetGenerator generator = new DatasetGenerator(connection, options.getLong("seed", 42),
+                    options.getInt("batch-size", 1000), options.getDouble("zipf-exponent", 1.1));
+            generator.generate(
+                    options.getInt("users", 10_000),
+                    options.getInt("themes", 200),
+                    options.getInt("max-subscriptions", 50),
+                    options.getInt("articles", 100_000),
+                    options.getInt("comments", 1_000_000));
+        }
+    }
+
+    private void generate(int users, int themes, int maxSubscriptions, int articles, int comments)
+            throws SQLException {
+        long firstUserId = nextId("users");
+        long firstThemeId = nextId("themes");
+        long firstArticleId = nextId("articles");
+
+        timed("users", users, () -> insertUsers(firstUserId, users));
+        timed("themes", themes, () -> insertThemes(firstThemeId, themes));
+        timed("subscriptions", -1, () -> insertSubscriptions(firstUserId, users, firstThemeId, themes,
+                Math.min(maxSubscriptions, themes)));
+        long[] articleCreatedAt = new long[articles];
+        timed("articles", articles, () -> insertArticles(firstArticleId, articles, firstUserId, users,
+                firstThemeId, themes, articleCreatedAt));
+        timed("comments", comments, () -> insertComments(comments, firstArticleId, articleCreatedAt,
+                firstUserId, users));
+
+        for (String table : TABLES) {
+            moveSequencePastIds(table);
+        }
+        connection.commit();
+    }
+
+    private int insertUsers(long firstId, int count) throws SQLException {
+        String password = new BCryptPasswordEncoder().encode("password");
+        Timestamp createdAt = Timestamp.valueOf(now.minusYears(1));
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO users (id, username, email, password, createdat, updatedat) VALUES (?, ?, ?, ?, ?, ?)")) {
+            Batch batch = new Batch(insert);
+            for (long id = firstId; id < firstId + count; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "user" + id);
+                insert.setString(3, "user" + id + "@loadtest.local");
+                insert.setString(4, password);
+                insert.setTimestamp(5, createdAt);
+                insert.setTimestamp(6, createdAt);
+                batch.add();
+            }
+            return batch.finish();
+        }
+    }
+
+    private int insertThemes(long firstId, int count) throws SQLException {
+        Timestamp createdAt = Timestamp.valueOf(now.minusYears(1));
+
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO themes (id, title, normalizedtitle, description, createdat, updatedat)
+                VALUES (?, ?, ?, ?, ?, ?)""")) {
+            Batch batch = new Batch(insert);
+            for (long id = firstId; id < firstId + count; id++) {
+                String title = "Theme " + id;
+                insert.setLong(1, id);
+                insert.setString(2, title);
+                insert.setString(3, title.toLowerCase());
+                insert.setString(4, "Description du thème " + id);
+                insert.setTimestamp(5, createdAt);
+                insert.setTimestamp(6, createdAt);
+                batch.add();
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * Every user follows between 1 and {@code maxSubscriptions} themes, most
+     * users following few of them, picked by popularity.
+     */
+    private int insertSubscriptions(long firstUserId, int users, long firstThemeId, int themes,
+            int maxSubscriptions) throws SQLException {
+        ZipfDistribution subscriptionCounts = new ZipfDistribution(maxSubscriptions, exponent);
+        ZipfDistribution themePopularity = new ZipfDistribution(themes, exponent);
+        long id = nextId("subscriptions");
+        Timestamp createdAt = Timestamp.valueOf(now.minusMonths(6));
+
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO subscriptions (id, userid, themeid, issubscribed, createdat, updatedat)
+                VALUES (?, ?, ?, TRUE, ?, ?)""")) {
+            Batch batch = new Batch(insert);
+            BitSet subscribedThemes = new BitSet(themes);
+            for (long userId = firstUserId; userId < firstUserId + users; userId++) {
+                int subscriptions = subscriptionCounts.sample(random) + 1;
+                subscribedThemes.clear();
+                while (subscribedThemes.cardinality() < subscriptions) {
+                    int theme = themePopularity.sample(random);
+                    if (subscribedThemes.get(theme)) {
+                        theme = random.nextInt(themes);
+                    }
+                    if (!subscribedThemes.get(theme)) {
+                        subscribedThemes.set(theme);
+                        insert.setLong(1, id++);
+                        insert.setLong(2, userId);
+                        insert.setLong(3, firstThemeId + theme);
+                        insert.setTimestamp(4, createdAt);
+                        insert.setTimestamp(5, createdAt);
+                        batch.add();
+                    }
+                }
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * Articles are published over the last year in id order, by Zipfian
+     * authors in Zipfian themes.
+     */
+    private int insertArticles(long firstId, int count, long firstUserId, int users, long firstThemeId,
+            int themes, long[] createdAtSeconds) throws SQLException {
+        ZipfDistribution authorActivity = new ZipfDistribution(users, exponent);
+        ZipfDistribution themePopularity = new ZipfDistribution(themes, exponent);
+        LocalDateTime start = now.minusYears(1);
+        long span = Duration.between(start, now).toSeconds();
+
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO articles (id, userid, themeid, title, description, content, createdat, updatedat)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)""")) {
+            Batch batch = new Batch(insert);
+            for (int i = 0; i < count; i++) {
+                long id = firstId + i;
+                createdAtSeconds[i] = span * i / count;
+                Timestamp createdAt = Timestamp.valueOf(start.plusSeconds(createdAtSeconds[i]));
+                insert.setLong(1, id);
+                insert.setLong(2, firstUserId + authorActivity.sample(random));
+                insert.setLong(3, firstThemeId + themePopularity.sample(random));
+                insert.setString(4, "Article " + id);
+                insert.setString(5, "Description de l'article " + id + ", sur quelques lignes.");
+                insert.setString(6, text(40 + random.nextInt(400)));
+                insert.setTimestamp(7, createdAt);
+                insert.setTimestamp(8, createdAt);
+                batch.add();
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * Comments go mostly to a few popular articles, within a week of their
+     * publication.
+     */
+    private int insertComments(int count, long firstArticleId, long[] articleCreatedAtSeconds, long firstUserId,
+            int users) throws SQLException {
+        if (articleCreatedAtSeconds.length == 0) {
+            return 0;
+        }
+
+        ZipfDistribution articlePopularity = new ZipfDistribution(articleCreatedAtSeconds.length, exponent);
+        ZipfDistribution authorActivity = new ZipfDistribution(users, exponent);
+        // Les articles les plus commentés ne sont pas les premiers publiés
+        int[] popularityToArticle = shuffledIndexes(articleCreatedAtSeconds.length);
+        LocalDateTime start = now.minusYears(1);
+        long id = nextId("comments");
+
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO comments (id, userid, articleid, comment, createdat, updatedat)
+                VALUES (?, ?, ?, ?, ?, ?)""")) {
+            Batch batch = new Batch(insert);
+            for (int i = 0; i < count; i++) {
+                int article = popularityToArticle[articlePopularity.sample(random)];
+                long createdAtSeconds = articleCreatedAtSeconds[article] + random.nextLong(7 * 24 * 3600);
+                Timestamp createdAt = Timestamp.valueOf(start.plusSeconds(createdAtSeconds));
+                insert.setLong(1, id++);
+                insert.setLong(2, firstUserId + authorActivity.sample(random));
+                insert.setLong(3, firstArticleId + article);
+                insert.setString(4, text(5 + random.nextInt(40)));
+                insert.setTimestamp(5, createdAt);
+                insert.setTimestamp(6, createdAt);
+                batch.add();
+            }
+            return batch.finish();
+        }
+    }
+
+    private int[] shuffledIndexes(int size) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swapped = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swapped;
+        }
+        return indexes;
+    }
+
+    private String text(int words) {
+        StringBuilder text = new StringBuilder(words * 9);
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private long nextId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    /**
+     * Moves the sequence of Hibernate past the ids inserted here. MySQL has no
+     * sequences: Hibernate emulates them with a one-row {@code <table>_seq}
+     * table.
+     */
+    private void moveSequencePastIds(String table) throws SQLException {
+        long next = nextId(table) + SEQUENCE_ALLOCATION_SIZE;
+        boolean mysql = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
+
+        try (Statement statement = connection.createStatement()) {
+            if (mysql) {
+                statement.executeUpdate("UPDATE " + table + "_seq SET next_val = " + next
+                        + " WHERE next_val < " + next);
+            } else {
+                statement.executeUpdate("ALTER SEQUENCE " + table + "_seq RESTART WITH " + next);
+            }
+        }
+    }
+
+    private void timed(String table, int expected, Step step) throws SQLException {
+        long start = System.nanoTime();
+        int inserted = step.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-14s %,12d rows in %7.1f s (%,.0f rows/s)%n", table, inserted, seconds,
+                inserted / Math.max(seconds, 1e-3));
+        if (expected >= 0 && inserted != expected) {
+            throw new IllegalStateException(table + ": expected " + expected + " rows, inserted " + inserted);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        int run() throws SQLException;
+    }
+
+    /**
+     * Sends the rows of a statement in batches, committing each batch.
+     */
+    private final class Batch {
+        private final PreparedStatement statement;
+        private int pending;
+        private int inserted;
+
+        Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void add() throws SQLException {
+            statement.addBatch();
+            if (++pending == batchSize) {
+                flush();
+            }
+        }
+
+        int finish() throws SQLException {
+            flush();
+            return inserted;
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                connection.commit();
+                inserted += pending;
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.openclassrooms.p6.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Closed-loop load driver replaying a mix of feed, article detail, comment and
+ * subscription calls against a running instance, and reporting the throughput
+ * and the latency percentiles of every kind of call.
+ *
+ * <p>
+ * Each of the {@code --concurrency} virtual users picks a user of the dataset
+ * with a Zipfian distribution, so a few users are much more active, then a
+ * call according to {@code --mix}. Article details and comments target the
+ * articles of the last feed page read by the user, so they pass the
+ * subscription checks. Tokens are signed with {@code --jwt-secret} instead of
+ * logging in, which would measure the password hashing. Latencies recorded
+ * during {@code --warmup} are discarded.
+ *
+ * <p>
+ * The report starts with {@code --label} and the settings of the run, so the
+ * reports of runs against differently configured instances (virtual threads
+ * or not, pool sizes) can be compared side by side.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dexec.mainClass=com.openclassrooms.p6.loadtest.LoadDriver \
+ *     -Dexec.args="--users=10000 --duration=60s --concurrency=64 --mix=feed:60,detail:30,comment:7,subscribe:3"
+ * </pre>
+ */
+public final class LoadDriver {
+
+    enum Call {
+        FEED, DETAIL, COMMENT, SUBSCRIBE
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String label;
+    private final String baseUrl;
+    private final byte[] jwtSecret;
+    private final long firstUserId;
+    private final long firstThemeId;
+    private final ZipfDistribution userActivity;
+    private final ZipfDistribution themePopularity;
+    private final Map<Call, Integer> mix;
+    private final int totalWeight;
+
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> lastFeedArticleIds = new ConcurrentHashMap<>();
+    private final Map<Call, Histogram> latencies = new EnumMap<>(Call.class);
+    private final Map<Call, AtomicLong> errors = new EnumMap<>(Call.class);
+
+    private volatile boolean recording;
+
+    private LoadDriver(Options options) {
+        label = options.get("label", "");
+        baseUrl = options.get("base-url", "http://localhost:3001");
+        jwtSecret = options.get("jwt-secret", "ThisIsMySuperSecretKeyThatIsLongEnoughToBeSafe1234567890abcDEF!!")
+                .getBytes(StandardCharsets.UTF_8);
+        firstUserId = options.getLong("first-user-id", 1);
+        firstThemeId = options.getLong("first-theme-id", 1);
+        double exponent = options.getDouble("zipf-exponent", 1.1);
+        userActivity = new ZipfDistribution(options.getInt("users", 10_000), exponent);
+        themePopularity = new ZipfDistribution(options.getInt("themes", 200), exponent);
+        mix = parseMix(options.get("mix", "feed:60,detail:30,comment:7,subscribe:3"));
+        totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        for (Call call : Call.values()) {
+            latencies.put(call, new ConcurrentHistogram(3));
+            errors.put(call, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args);
+        LoadDriver driver = new LoadDriver(options);
+        driver.run(options.getInt("concurrency", 64),
+                options.getDuration("warmup", Duration.ofSeconds(10)),
+                options.getDuration("duration", Duration.ofSeconds(60)));
+    }
+
+    private void run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+
+        try (ExecutorService virtualUsers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                virtualUsers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        callOnce();
+                    }
+                });
+            }
+
+            Thread.sleep(warmup);
+            recording = true;
+            System.out.printf("Warmup done, recording for %s with %d virtual users%n", duration, concurrency);
+        }
+
+        report(concurrency, duration);
+    }
+
+    private void callOnce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = firstUserId + userActivity.sample(random);
+        Call call = pickCall(random.nextInt(totalWeight));
+        long[] articleIds = lastFeedArticleIds.get(userId);
+        if ((call == Call.DETAIL || call == Call.COMMENT) && (articleIds == null || articleIds.length == 0)) {
+            call = Call.FEED;
+        }
+
+        long start = System.nanoTime();
+        boolean succeeded;
+        try {
+            succeeded = switch (call) {
+                case FEED -> readFeed(userId);
+                case DETAIL -> send(get(userId, "/api/articles/" + pick(articleIds))).statusCode() == 200;
+                case COMMENT -> postComment(userId, pick(articleIds));
+                case SUBSCRIBE -> toggleSubscription(userId, firstThemeId + themePopularity.sample(random));
+            };
+        } catch (Exception e) {
+            succeeded = false;
+        }
+
+        if (recording) {
+            latencies.get(call).recordValue((System.nanoTime() - start) / 1000);
+            if (!succeeded) {
+                errors.get(call).incrementAndGet();
+            }
+        }
+    }
+
+    private boolean readFeed(long userId) throws Exception {
+        HttpResponse<String> response = send(get(userId, "/api/articles/feed?size=20"));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+
+        JsonNode articles = objectMapper.readTree(response.body()).path("articles");
+        long[] articleIds = new long[articles.size()];
+        for (int i = 0; i < articleIds.length; i++) {
+            articleIds[i] = articles.get(i).path("id").asLong();
+        }
+        lastFeedArticleIds.put(userId, articleIds);
+        return true;
+    }
+
+    private boolean postComment(long userId, long articleId) throws Exception {
+        HttpRequest request = authorized(userId, "/api/articles/comment/?articleId=" + articleId)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"comment\":\"Commentaire de charge\"}"))
+                .build();
+        int status = send(request).statusCode();
+        return status == 201 || status == 202;
+    }
+
+    /**
+     * Subscribes the user to the theme, or unsubscribes the user when already
+     * subscribed, so the number of subscriptions stays stable.
+     */
+    private boolean toggleSubscription(long userId, long themeId) throws Exception {
+        int status = send(authorized(userId, "/api/themes/subscribe/?themeId=" + themeId)
+                .POST(HttpRequest.BodyPublishers.noBody()).build()).statusCode();
+        if (status == 400) {
+            status = send(authorized(userId, "/api/themes/unsubscribe/?themeId=" + themeId)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build()).statusCode();
+        }
+        return status == 200 || status == 201;
+    }
+
+    private HttpRequest get(long userId, String path) {
+        return authorized(userId, path).GET().build();
+    }
+
+    private HttpRequest.Builder authorized(long userId, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + tokens.computeIfAbsent(userId, this::signToken));
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String signToken(Long userId) {
+        return Jwts.builder()
+                .setSubject(String.valueOf(userId))
+                .setIssuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(jwtSecret), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    private Call pickCall(int weight) {
+        int cumulativeWeight = 0;
+        for (Map.Entry<Call, Integer> entry : mix.entrySet()) {
+            cumulativeWeight += entry.getValue();
+            if (weight < cumulativeWeight) {
+                return entry.getKey();
+            }
+        }
+        return Call.FEED;
+    }
+
+    private static long pick(long[] articleIds) {
+        return articleIds[ThreadLocalRandom.current().nextInt(articleIds.length)];
+    }
+
+    private static Map<Call, Integer> parseMix(String mix) {
+        Map<Call, Integer> weights = new EnumMap<>(Call.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            weights.put(Call.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private void report(int concurrency, Duration duration) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%s concurrency=%d duration=%ds mix=%s", label.isEmpty() ? "run" : label,
+                concurrency, duration.toSeconds(), mix));
+        lines.add(String.format("%-10s %10s %8s %10s %9s %9s %9s %9s %9s", "call", "count", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+
+        long total = 0;
+        for (Call call : Call.values()) {
+            Histogram histogram = latencies.get(call);
+            long count = histogram.getTotalCount();
+            total += count;
+            if (count == 0) {
+                continue;
+            }
+            lines.add(String.format("%-10s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    call.name().toLowerCase(), count, errors.get(call).get(), count / (double) duration.toSeconds(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+        }
+        lines.add(String.format("%-10s %10d %8s %10.1f", "total", total, "", total / (double) duration.toSeconds()));
+        lines.forEach(System.out::println);
+    }
+}
@@ -0,0 +1,191 @@
+package com.openclassrooms.p6.configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.p6.configuration.sql.SqlRequestStats;
+import com.openclassrooms.p6.service.JsonResponseCache;
+
+/**
+ * This class is a configuration class that registers the in-memory caches of
+ * the application on the Caffeine cache manager.
+ * Every cache is bounded and records its statistics so that hits, misses and
+ * evictions are published through Actuator.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String THEMES_CACHE = "themes";
+    public static final String THEME_BY_ID_CACHE = "themeById";
+    public static final String THEME_BY_TITLE_CACHE = "themeByTitle";
+    public static final String SUBSCRIBED_THEMES_CACHE = "subscribedThemes";
+    public static final String VERIFIED_TOKENS_CACHE = "verifiedTokens";
+    public static final String USER_AUTH_STATES_CACHE = "userAuthStates";
+    public static final String HOME_FEEDS_CACHE = "homeFeeds";
+    public static final String ARTICLE_SUMMARIES_CACHE = "articleSummaries";
+    public static final String JSON_RESPONSES_CACHE = "jsonResponses";
+    public static final String THEME_ARTICLES_VERSIONS_CACHE = "themeArticlesVersions";
+    public static final String ARTICLE_VERSIONS_CACHE = "articleVersions";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> themeCachesCustomizer(
+            @Value("${cache.themes.maximum-size:1000}") long maximumSize,
+            @Value("${cache.themes.ttl:#{null}}") Duration ttl) {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(THEMES_CACHE, buildCache(1, ttl));
+            cacheManager.registerCustomCache(THEME_BY_ID_CACHE, buildCache(maximumSize, ttl));
+            cacheManager.registerCustomCache(THEME_BY_TITLE_CACHE, buildCache(maximumSize, ttl));
+        };
+    }
+
+    /**
+     * Executor running the loads of the asynchronous caches, one virtual thread
+     * per load.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService cacheLoaderExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * The subscribed themes are loaded through {@code Cache.get(key, loader)},
+     * so the cache is asynchronous: the database query runs on the loader
+     * executor rather than under the lock of the cache entry, which would pin
+     * the calling virtual thread for the duration of the query. The entries
+     * are updated after each committed write and also expire, which bounds
+     * the life of an entry that missed an update.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> subscriptionCachesCustomizer(
+            @Value("${cache.subscriptions.maximum-size:10000}") long maximumSize,
+            @Value("${cache.subscriptions.ttl:30m}") Duration ttl,
+            ExecutorService cacheLoaderExecutor) {
+        return cacheManager -> cacheManager.registerCustomCache(SUBSCRIBED_THEMES_CACHE,
+                buildAsyncCache(maximumSize, ttl, cacheLoaderExecutor));
+    }
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> tokenCachesCustomizer(
+            @Value("${cache.tokens.maximum-size:10000}") long maximumSize,
+            @Value("${cache.tokens.ttl:#{null}}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(VERIFIED_TOKENS_CACHE,
+                buildCache(maximumSize, ttl));
+    }
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> userCachesCustomizer(
+            @Value("${cache.users.maximum-size:10000}") long maximumSize,
+            @Value("${cache.users.ttl:#{null}}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(USER_AUTH_STATES_CACHE,
+                buildCache(maximumSize, ttl));
+    }
+
+    /**
+     * The home feeds are rebuilt through {@code Cache.get(key, loader)}, so, as
+     * for the subscribed themes, the cache is asynchronous. The article
+     * summaries are shared by every feed and only read and written directly.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> feedCachesCustomizer(
+            @Value("${cache.feeds.maximum-size:10000}") long maximumSize,
+            @Value("${cache.feeds.ttl:#{null}}") Duration ttl,
+            @Value("${cache.article-summaries.maximum-size:50000}") long summariesMaximumSize,
+            ExecutorService cacheLoaderExecutor) {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(HOME_FEEDS_CACHE,
+                    buildAsyncCache(maximumSize, ttl, cacheLoaderExecutor));
+            cacheManager.registerCustomCache(ARTICLE_SUMMARIES_CACHE,
+                    buildCache(summariesMaximumSize, null));
+        };
+    }
+
+    /**
+     * The versions of the article lists and details are read from the tables
+     * on a miss, so, as for the subscribed themes, the caches are asynchronous.
+     * Their entries are evicted after each committed write and also expire,
+     * which bounds how long an instance keeps a version older than a write
+     * handled by another instance.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> resourceVersionCachesCustomizer(
+            @Value("${cache.resource-versions.maximum-size:50000}") long maximumSize,
+            @Value("${cache.resource-versions.ttl:1m}") Duration ttl,
+            ExecutorService cacheLoaderExecutor) {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(THEME_ARTICLES_VERSIONS_CACHE,
+                    buildAsyncCache(maximumSize, ttl, cacheLoaderExecutor));
+            cacheManager.registerCustomCache(ARTICLE_VERSIONS_CACHE,
+                    buildAsyncCache(maximumSize, ttl, cacheLoaderExecutor));
+        };
+    }
+
+    /**
+     * The serialized responses vary a lot in size, so the cache is bounded by
+     * the number of bytes it holds rather than by its number of entries.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> jsonResponseCachesCustomizer(
+            @Value("${cache.json-responses.maximum-bytes:67108864}") long maximumBytes) {
+        return cacheManager -> cacheManager.registerCustomCache(JSON_RESPONSES_CACHE, Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((key, body) -> ((JsonResponseCache.CachedBody) body).weight())
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Builds a bounded cache recording its statistics.
+     *
+     * @param maximumSize Maximum number of entries kept in the cache.
+     * @param ttl         Time to live of an entry after it is written, or null
+     *                    to keep entries until they are evicted.
+     * @return The cache.
+     */
+    static Cache<Object, Object> buildCache(long maximumSize, Duration ttl) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+
+        if (ttl != null && !ttl.isZero()) {
+            builder.expireAfterWrite(ttl);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Builds a bounded asynchronous cache recording its statistics.
+     *
+     * @param maximumSize Maximum number of entries kept in the cache.
+     * @param ttl         Time to live of an entry after it is written, or null
+     *                    to keep entries until they are evicted.
+     * @param executor    Executor running the loads of the cache. The SQL
+     *                    statements of a load are attributed to the request
+     *                    waiting for it.
+     * @return The cache.
+     */
+    static AsyncCache<Object, Object> buildAsyncCache(long maximumSize, Duration ttl, ExecutorService executor) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(task -> executor.execute(SqlRequestStats.propagate(task)))
+                .recordStats();
+
+        if (ttl != null && !ttl.isZero()) {
+            builder.expireAfterWrite(ttl);
+        }
+
+        return builder.buildAsync();
+    }
+}
@@ -1,11 +1,17 @@
 package com.openclassrooms.p6.configuration;
 
+import com.openclassrooms.p6.exception.ApiException;
+import com.openclassrooms.p6.service.AuthService;
 import com.openclassrooms.p6.utils.JwtUtil;
+
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,11 +25,14 @@ import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
+    private final AuthService authService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, AuthService authService) {
         this.jwtUtil = jwtUtil;
+        this.authService = authService;
     }
 
     @Override
@@ -33,41 +42,56 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String header = request.getHeader("Authorization");
-        System.out.println("[JWT FILTER] Interception de la requête : " + request.getRequestURI());
-
+        String outcome;
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = JwtUtil.extractJwtFromHeader(header);
-            System.out.println("[JWT FILTER] Token extrait : " + token);
-
-
-            if (jwtUtil.isTokenValid(token)) {
-                System.out.println("[JWT FILTER] Token valide");
-
-                Optional<Long> userIdOpt = jwtUtil.extractUserId(token);
-                System.out.println("[JWT FILTER] User ID extrait du token : " + userIdOpt);
+            Optional<Claims> claimsOpt = jwtUtil.parseVerifiedClaims(token);
 
+            if (claimsOpt.isPresent()) {
+                Optional<Long> userIdOpt = JwtUtil.extractUserId(claimsOpt.get());
 
                 if (userIdOpt.isPresent()) {
                     Long userId = userIdOpt.get();
 
+                    // Les claims vérifiés sont conservés comme credentials pour les contrôles en aval
                     List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
                     UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userId.toString(), null, authorities);
+                            new UsernamePasswordAuthenticationToken(userId.toString(), claimsOpt.get(), authorities);
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    System.out.println("[JWT FILTER] Authentication injectée dans le contexte");
+                    // Un jeton révoqué par un changement de mot de passe est traité comme invalide
+                    if (isAccepted(authentication)) {
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        outcome = "authenticated";
+                    } else {
+                        outcome = "revoked_token";
+                    }
                 } else {
-                    System.out.println("[JWT FILTER] Aucun userId trouvé dans le token");
+                    outcome = "missing_subject";
                 }
             } else {
-                System.out.println("[JWT FILTER] Token invalide");
+                outcome = "invalid_token";
             }
         } else {
-            System.out.println("[JWT FILTER] Aucun header Authorization valide trouvé");
+            outcome = "missing_header";
         }
 
+        // Un seul événement structuré par requête, jamais le token lui-même
+        log.atDebug()
+                .addKeyValue("uri", request.getRequestURI())
+                .addKeyValue("outcome", outcome)
+                .log("JWT authentication");
+
         filterChain.doFilter(request, response);
     }
+
+    private boolean isAccepted(UsernamePasswordAuthenticationToken authentication) {
+        try {
+            authService.getAuthenticatedUserId(authentication);
+            return true;
+        } catch (ApiException e) {
+            return false;
+        }
+    }
 }
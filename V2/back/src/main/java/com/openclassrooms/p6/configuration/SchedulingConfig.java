@@ -0,0 +1,12 @@
+package com.openclassrooms.p6.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} background tasks of the application.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -31,6 +31,8 @@ public class SpringSecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Le JWT du canal WebSocket est vérifié à la poignée de main
+                        .requestMatchers("/ws/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/articles").authenticated()
                         .requestMatchers(HttpMethod.POST, "/api/articles/**").authenticated()
                         .anyRequest().authenticated()
@@ -40,8 +42,9 @@ public class SpringSecurityConfig {
     }
 
 
+    // Statique : le filtre JWT dépend, via les services, de l'encodeur déclaré ici
     @Bean
-    BCryptPasswordEncoder passwordEncoder() {
+    static BCryptPasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
 }
@@ -0,0 +1,37 @@
+package com.openclassrooms.p6.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import com.openclassrooms.p6.realtime.JwtHandshakeInterceptor;
+import com.openclassrooms.p6.realtime.UpdatesWebSocketHandler;
+
+/**
+ * This class is a configuration class that exposes the push channel of the
+ * application on {@code /ws/updates}.
+ * Browsers cannot set headers on a WebSocket handshake, so the JWT is passed
+ * in the {@code token} query parameter and checked by the
+ * {@link JwtHandshakeInterceptor}.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final UpdatesWebSocketHandler updatesWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    public WebSocketConfig(UpdatesWebSocketHandler updatesWebSocketHandler,
+            JwtHandshakeInterceptor jwtHandshakeInterceptor) {
+        this.updatesWebSocketHandler = updatesWebSocketHandler;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(updatesWebSocketHandler, "/ws/updates")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOriginPatterns("http://localhost:4200");
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.p6.configuration.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Scope in which the read-only transactions of the current thread read from
+ * the primary database rather than from a replica.
+ *
+ * <p>
+ * Reads whose result outlives the request, such as the loads of the caches
+ * kept up to date by the write events or the bodies served under a version
+ * tag, must not be taken from a lagging replica: the stale result would be
+ * kept until the next change. The scope has no effect without replicas.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Runs a read against the primary database. The scope must enclose the
+     * whole transaction, as the database is chosen by its first statement.
+     *
+     * @param read The read.
+     * @return The result of the read.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return True if the current thread runs in a primary read scope.
+     */
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.openclassrooms.p6.configuration.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Spreads the read-only transactions over the read replicas listed in
+ * {@code datasource.replicas.urls}, when {@code datasource.replicas.enabled}
+ * is set.
+ *
+ * <p>
+ * The primary pool is built from the {@code spring.datasource} properties, as
+ * it would be without replicas, and every replica pool shares its
+ * {@code spring.datasource.hikari} settings. Only the routing data source is
+ * exposed as a bean, so that it is instrumented once.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private static final String HIKARI_PROPERTIES = "spring.datasource.hikari";
+
+    @Bean(destroyMethod = "close")
+    public ReplicaSet replicaSet(
+            @Value("${datasource.replicas.urls}") List<String> urls,
+            @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${datasource.replicas.max-lag:2s}") Duration maxLag,
+            @Value("${datasource.replicas.lag-query:}") String lagQuery,
+            @Value("${datasource.replicas.sticky-window:5s}") Duration stickyWindow,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        List<String> replicaUrls = urls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalStateException("datasource.replicas.urls must list at least one replica");
+        }
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource replica = buildPool(name, environment, meterRegistry);
+            replica.setJdbcUrl(replicaUrls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+
+        ReplicaSet replicaSet = new ReplicaSet(replicas, maxLag, lagQuery, stickyWindow);
+        Gauge.builder("datasource.replicas.healthy", replicaSet, ReplicaSet::getHealthyReplicaCount)
+                .description("Number of read replicas in the rotation")
+                .register(meterRegistry);
+        return replicaSet;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, ReplicaSet replicaSet,
+            Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource primary = buildPool(ReplicaRoutingDataSource.PRIMARY, environment, meterRegistry);
+        primary.setJdbcUrl(properties.determineUrl());
+        primary.setUsername(properties.determineUsername());
+        primary.setPassword(properties.determinePassword());
+        primary.setDriverClassName(properties.determineDriverClassName());
+
+        Map<Object, Object> targets = new HashMap<>(replicaSet.getReplicas());
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicaSet);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+
+        return new RoutingDataSourceProxy(routingDataSource, primary);
+    }
+
+    private static HikariDataSource buildPool(String name, Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind(HIKARI_PROPERTIES, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    /**
+     * Defers the choice of the database to the first use of a connection, by
+     * which time the transaction is set up. Closes the primary pool with the
+     * context, the replica pools being closed by the {@link ReplicaSet}.
+     */
+    private static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final HikariDataSource primary;
+
+        RoutingDataSourceProxy(ReplicaRoutingDataSource routingDataSource, HikariDataSource primary) {
+            super(routingDataSource);
+            this.primary = primary;
+        }
+
+        @Override
+        public void close() {
+            primary.close();
+        }
+    }
+}
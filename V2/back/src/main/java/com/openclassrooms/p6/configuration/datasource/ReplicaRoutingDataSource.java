@@ -0,0 +1,45 @@
+package com.openclassrooms.p6.configuration.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to a healthy replica, and
+ * every other connection to the primary.
+ *
+ * <p>
+ * The primary is kept for the reads of a primary scope
+ * ({@link DataSourceRouting#readFromPrimary}) and for the authenticated user
+ * who wrote within the sticky window of the {@link ReplicaSet}. The database
+ * is chosen when the connection is first used, so the data source must be
+ * wrapped in a lazy connection proxy for the transaction to be known by then.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicaSet;
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || DataSourceRouting.isPrimaryRequired()
+                || replicaSet.isRecentWriter(getAuthenticatedUserId())) {
+            return PRIMARY;
+        }
+
+        String replica = replicaSet.nextHealthyReplica();
+        return replica == null ? PRIMARY : replica;
+    }
+
+    private static String getAuthenticatedUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof String userId ? userId : null;
+    }
+}
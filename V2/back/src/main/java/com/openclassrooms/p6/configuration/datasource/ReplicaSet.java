@@ -0,0 +1,212 @@
+package com.openclassrooms.p6.configuration.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.event.CommentPostedEvent;
+import com.openclassrooms.p6.event.SubscriptionChangedEvent;
+import com.openclassrooms.p6.event.UserUpdatedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Read replicas of the database, with their health and the users who must
+ * read their own writes from the primary.
+ *
+ * <p>
+ * A replica is in the rotation while it accepts connections and, when
+ * {@code datasource.replicas.lag-query} is set, lags behind the primary by at
+ * most {@code datasource.replicas.max-lag}. The lag is read from the
+ * {@code Seconds_Behind_Source} column of the query, or from its first column;
+ * no row or a null lag means the replica is not replicating. Replicas join
+ * the rotation after their first successful check.
+ *
+ * <p>
+ * A user who just wrote reads from the primary for
+ * {@code datasource.replicas.sticky-window}, which should exceed the maximum
+ * lag, so that the user sees the write on the next requests.
+ */
+public class ReplicaSet implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final List<String> LAG_COLUMNS = List.of("Seconds_Behind_Source", "Seconds_Behind_Master");
+
+    private final Map<String, HikariDataSource> replicas;
+
+    private final Duration maxLag;
+
+    private final String lagQuery;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private volatile List<String> healthyReplicas = List.of();
+
+    /**
+     * @param replicas     Pools of the replicas, by name.
+     * @param maxLag       Maximum lag of a replica in the rotation.
+     * @param lagQuery     Query reading the lag of a replica, or blank to only
+     *                     check that it accepts connections.
+     * @param stickyWindow Time during which a user reads from the primary after
+     *                     a write.
+     */
+    public ReplicaSet(Map<String, HikariDataSource> replicas, Duration maxLag, String lagQuery,
+            Duration stickyWindow) {
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery == null ? "" : lagQuery.trim();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * @return The pools of the replicas, by name.
+     */
+    public Map<String, HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return The number of replicas currently in the rotation.
+     */
+    public int getHealthyReplicaCount() {
+        return healthyReplicas.size();
+    }
+
+    /**
+     * Picks the next replica of the rotation.
+     *
+     * @return The name of the replica, or null if none is healthy.
+     */
+    String nextHealthyReplica() {
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return null;
+        }
+
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * @param userId Identifier of the user, or null.
+     * @return True if the user wrote within the sticky window.
+     */
+    boolean isRecentWriter(String userId) {
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    /**
+     * Takes the replicas that are down or lagging out of the rotation, and
+     * puts back those that caught up.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        replicas.forEach((name, replica) -> {
+            if (isUpToDate(name, replica)) {
+                healthy.add(name);
+            }
+        });
+
+        List<String> previous = healthyReplicas;
+        healthyReplicas = List.copyOf(healthy);
+        if (!healthy.equals(previous)) {
+            logger.info("Replicas in the rotation: {} of {} {}", healthy.size(), replicas.size(), healthy);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePublished(ArticlePublishedEvent event) {
+        markRecentWriter(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentPosted(CommentPostedEvent event) {
+        markRecentWriter(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        markRecentWriter(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        markRecentWriter(event.userId());
+    }
+
+    @Override
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+    }
+
+    private void markRecentWriter(Long userId) {
+        recentWriters.put(String.valueOf(userId), Boolean.TRUE);
+    }
+
+    private boolean isUpToDate(String name, DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                logger.warn("Replica {} failed its validation", name);
+                return false;
+            }
+            if (lagQuery.isEmpty()) {
+                return true;
+            }
+
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (!resultSet.next()) {
+                    logger.warn("Replica {} reports no replication status", name);
+                    return false;
+                }
+
+                long lagSeconds = resultSet.getLong(findLagColumn(resultSet.getMetaData()));
+                if (resultSet.wasNull()) {
+                    logger.warn("Replica {} is not replicating", name);
+                    return false;
+                }
+                if (Duration.ofSeconds(lagSeconds).compareTo(maxLag) > 0) {
+                    logger.warn("Replica {} lags {}s behind the primary", name, lagSeconds);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            logger.warn("Replica {} is unreachable: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private static int findLagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            String label = metaData.getColumnLabel(column);
+            if (LAG_COLUMNS.stream().anyMatch(label::equalsIgnoreCase)) {
+                return column;
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.openclassrooms.p6.configuration.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Logback filter keeping only a sample of the low-level events of the
+ * high-volume loggers.
+ *
+ * <p>
+ * Events of loggers whose name starts with {@code loggerPrefix} and whose level
+ * is below {@code WARN} are kept with a probability of {@code 1 / rate}. Other
+ * events are left to the next filters. Attached to an asynchronous appender,
+ * the filter runs on the request thread, before the event is queued.
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private String loggerPrefix = "";
+
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (rate <= 1
+                || event.getLevel().isGreaterOrEqual(Level.WARN)
+                || !event.getLoggerName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.p6.configuration.sql;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Attributes the SQL statements of each request to its controller method and
+ * records them as histograms tagged with {@code endpoint}, e.g.
+ * {@code ArticlesController.getArticleById}:
+ * {@code sql.request.statements}, {@code sql.request.rows} and
+ * {@code sql.request.time}.
+ */
+public class SqlMetricsInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    public SqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            SqlRequestStats.start(handlerMethod.getBeanType().getSimpleName() + "."
+                    + handlerMethod.getMethod().getName());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        SqlRequestStats stats = SqlRequestStats.end();
+        if (stats == null) {
+            return;
+        }
+
+        EndpointMeters endpointMeters = meters.computeIfAbsent(stats.endpoint(), this::registerMeters);
+        endpointMeters.statements().record(stats.statements());
+        endpointMeters.rows().record(stats.rows());
+        endpointMeters.time().record(stats.nanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private EndpointMeters registerMeters(String endpoint) {
+        return new EndpointMeters(
+                DistributionSummary.builder("sql.request.statements")
+                        .description("SQL statements executed by a request")
+                        .tag("endpoint", endpoint)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                DistributionSummary.builder("sql.request.rows")
+                        .description("Rows read from the result sets of a request")
+                        .tag("endpoint", endpoint)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Timer.builder("sql.request.time")
+                        .description("Time spent executing the SQL statements of a request")
+                        .tag("endpoint", endpoint)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private record EndpointMeters(DistributionSummary statements, DistributionSummary rows, Timer time) {
+    }
+}
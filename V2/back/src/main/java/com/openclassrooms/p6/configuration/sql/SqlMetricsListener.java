@@ -0,0 +1,97 @@
+package com.openclassrooms.p6.configuration.sql;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Adds every JDBC execution, and every row read from its result sets, to the
+ * {@link SqlRequestStats} of the current request, and logs the slow ones.
+ *
+ * <p>
+ * A slow statement is logged with the shape of its bind parameters (their
+ * position and type), never with their values.
+ */
+public class SqlMetricsListener implements QueryExecutionListener, MethodExecutionListener {
+    private static final Logger log = LoggerFactory.getLogger(SqlMetricsListener.class);
+
+    private static final String START_NANOS = "startNanos";
+
+    private final long slowQueryNanos;
+
+    public SqlMetricsListener(Duration slowQueryThreshold) {
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        execution.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        long elapsedNanos = System.nanoTime() - execution.getCustomValue(START_NANOS, Long.class);
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.addStatement(elapsedNanos);
+        }
+
+        if (elapsedNanos >= slowQueryNanos) {
+            log.atWarn()
+                    .addKeyValue("endpoint", stats == null ? "none" : stats.endpoint())
+                    .addKeyValue("elapsedMs", elapsedNanos / 1_000_000)
+                    .addKeyValue("batchSize", execution.isBatch() ? execution.getBatchSize() : 0)
+                    .addKeyValue("sql", queries.isEmpty() ? "" : queries.get(0).getQuery())
+                    .addKeyValue("binds", queries.isEmpty() ? "" : bindShape(queries.get(0)))
+                    .log("Slow SQL statement");
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext context) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext context) {
+        if (context.getTarget() instanceof ResultSet
+                && Boolean.TRUE.equals(context.getResult())
+                && context.getMethod().getName().equals("next")) {
+            SqlRequestStats stats = SqlRequestStats.current();
+            if (stats != null) {
+                stats.addRow();
+            }
+        }
+    }
+
+    /**
+     * Describes the parameters of the first execution of a statement, e.g.
+     * {@code 1:Long,2:String}.
+     */
+    private static String bindShape(QueryInfo query) {
+        if (query.getParametersList().isEmpty()) {
+            return "";
+        }
+
+        return query.getParametersList().get(0).stream()
+                .map(SqlMetricsListener::describe)
+                .collect(Collectors.joining(","));
+    }
+
+    private static String describe(ParameterSetOperation operation) {
+        String type = ParameterSetOperation.isSetNullParameterOperation(operation)
+                ? "null"
+                : operation.getMethod().getName().replaceFirst("^set", "");
+        return operation.getArgs()[0] + ":" + type;
+    }
+}
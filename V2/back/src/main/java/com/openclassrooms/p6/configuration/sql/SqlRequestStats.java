@@ -0,0 +1,110 @@
+package com.openclassrooms.p6.configuration.sql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL activity of the request handled by the current thread.
+ *
+ * <p>
+ * The statements a request delegates to another thread, such as the loads of
+ * the asynchronous caches, are attributed to it through {@link #propagate}, so
+ * the counters are updated concurrently.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+
+    private final LongAdder statements = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder nanos = new LongAdder();
+
+    private SqlRequestStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Starts collecting the statements of the current thread.
+     *
+     * @param endpoint Name of the controller method handling the request.
+     */
+    static void start(String endpoint) {
+        CURRENT.set(new SqlRequestStats(endpoint));
+    }
+
+    /**
+     * Stops collecting the statements of the current thread.
+     *
+     * @return The collected statistics, or null if none were being collected.
+     */
+    static SqlRequestStats end() {
+        SqlRequestStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * @return The statistics of the current request, or null outside of a
+     *         request.
+     */
+    static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps a task handed over to another thread so that its statements are
+     * attributed to the request submitting it.
+     *
+     * @param task The task.
+     * @return The task running with the statistics of the current request, or
+     *         the task itself outside of a request.
+     */
+    public static Runnable propagate(Runnable task) {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+
+        return () -> {
+            SqlRequestStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    void addStatement(long elapsedNanos) {
+        statements.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    void addRow() {
+        rows.increment();
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public long statements() {
+        return statements.sum();
+    }
+
+    public long rows() {
+        return rows.sum();
+    }
+
+    public long nanos() {
+        return nanos.sum();
+    }
+}
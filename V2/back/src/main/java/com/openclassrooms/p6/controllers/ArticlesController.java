@@ -3,8 +3,8 @@ package com.openclassrooms.p6.controllers;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.StreamSupport;
 
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
 import com.openclassrooms.p6.exception.ApiException;
 import com.openclassrooms.p6.exception.GlobalExceptionHandler;
 import com.openclassrooms.p6.mapper.ArticleMapper;
@@ -12,16 +12,20 @@ import com.openclassrooms.p6.mapper.CommentMapper;
 import com.openclassrooms.p6.model.Articles;
 import com.openclassrooms.p6.model.Comments;
 import com.openclassrooms.p6.model.Themes;
-import com.openclassrooms.p6.model.Users;
 import com.openclassrooms.p6.payload.request.ArticleRequest;
 import com.openclassrooms.p6.payload.request.CommentRequest;
 import com.openclassrooms.p6.payload.response.*;
 
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
 import com.openclassrooms.p6.service.*;
+import com.openclassrooms.p6.utils.ETags;
+import com.openclassrooms.p6.utils.PageCursor;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -32,8 +36,14 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/articles")
 public class ArticlesController {
 
-    @Autowired private UserService userService;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int ARTICLE_COMMENTS_PAGE_SIZE = 20;
+
     @Autowired private ArticleService articleService;
+    @Autowired private ArticleSearchService articleSearchService;
+    @Autowired private HomeFeedService homeFeedService;
+    @Autowired private ResourceVersionService resourceVersionService;
+    @Autowired private JsonResponseCache jsonResponseCache;
     @Autowired private CommentsService commentsService;
     @Autowired private ThemeService themeService;
     @Autowired private SubscriptionsService subscriptionsService;
@@ -41,62 +51,165 @@ public class ArticlesController {
     @Autowired private CommentMapper commentsMapper;
 
     @GetMapping("")
-    public ResponseEntity<?> getAllArticles(Authentication authentication) {
+    public ResponseEntity<?> getAllArticles(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication) {
         try {
             Long userId = Long.parseLong((String) authentication.getPrincipal());
 
-            List<Articles> allArticles = articleService.getArticles();
+            String etag = resourceVersionService.getArticlesETag(userId);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag).cacheControl(ETags.REVALIDATE)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
 
-            // Filtrer selon les abonnements
-            List<Long> subscribedThemeIds = StreamSupport.stream(
-                            subscriptionsService.findAllUserSubscriptions(userId).spliterator(), false)
-                    .filter(s -> Boolean.TRUE.equals(s.getIsSubscribed()))
-                    .map(s -> s.getThemeId())
-                    .toList();
+            // Le filtrage par abonnements est fait par la base ; le corps servi sous
+            // une version ne doit pas venir d'un réplica en retard
+            List<ArticleSummaryView> visibleArticles = DataSourceRouting.readFromPrimary(
+                    () -> articleService.getSubscribedArticles(userId));
+            List<ArticleSummaryResponse> articlesDto = articleMapper.toDtoArticleSummaries(visibleArticles);
 
-            List<Articles> visibleArticles = allArticles.stream()
-                    .filter(article -> subscribedThemeIds.contains(article.getThemeId()))
-                    .toList();
+            return jsonResponseCache.serialize(new MultipleArticlesResponse(articlesDto), null)
+                    .toResponse(ResponseEntity.ok().cacheControl(ETags.REVALIDATE), etag, acceptEncoding);
 
-            List<ArticleSummaryResponse> articlesDto = new ArrayList<>();
-            articleMapper.toDtoArticles(visibleArticles).forEach(articlesDto::add);
+        } catch (ApiException e) {
+            return GlobalExceptionHandler.handleApiException(e);
+        }
+    }
 
-            return ResponseEntity.ok(new MultipleArticlesResponse(articlesDto));
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication) {
+        try {
+            Long userId = Long.parseLong((String) authentication.getPrincipal());
+            PageCursor pageCursor = verifyAndDecodeCursor(cursor);
+            int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+
+            String etag = resourceVersionService.getArticlesETag(userId, cursor, pageSize);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag).cacheControl(ETags.REVALIDATE)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+
+            Slice<ArticleSummaryView> page = DataSourceRouting.readFromPrimary(
+                    () -> homeFeedService.getFeedPage(userId, pageCursor, pageSize));
+            List<ArticleSummaryResponse> articlesDto = articleMapper.toDtoArticleSummaries(page.getContent());
+
+            String nextCursor = null;
+            if (page.hasNext()) {
+                ArticleSummaryView last = page.getContent().get(page.getNumberOfElements() - 1);
+                nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+
+            return jsonResponseCache.serialize(new ArticleFeedResponse(articlesDto, nextCursor), null)
+                    .toResponse(ResponseEntity.ok().cacheControl(ETags.REVALIDATE), etag, acceptEncoding);
+        } catch (ApiException e) {
+            return GlobalExceptionHandler.handleApiException(e);
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchArticles(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        try {
+            Long userId = Long.parseLong((String) authentication.getPrincipal());
+            if (q == null || q.isBlank()) {
+                throw new ApiException(
+                        "Bad request",
+                        List.of("The search query must not be empty"),
+                        HttpStatus.BAD_REQUEST,
+                        LocalDateTime.now()
+                );
+            }
 
+            // Recherche limitée aux thèmes auxquels l'utilisateur est abonné
+            List<ArticleSummaryView> matchingArticles = articleSearchService.search(
+                    userId, q, Math.clamp(size, 1, MAX_PAGE_SIZE));
+            List<ArticleSummaryResponse> articlesDto = articleMapper.toDtoArticleSummaries(matchingArticles);
+
+            return ResponseEntity.ok(new MultipleArticlesResponse(articlesDto));
         } catch (ApiException e) {
             return GlobalExceptionHandler.handleApiException(e);
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getArticleById(@PathVariable("id") Long articleId, Authentication authentication) {
+    public ResponseEntity<?> getArticleById(
+            @PathVariable("id") Long articleId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication) {
+        try {
+            Long userId = Long.parseLong((String) authentication.getPrincipal());
+
+            // Le tag n'est renvoyé qu'avec une réponse 200 : seul un utilisateur
+            // autorisé, dont les abonnements n'ont pas changé depuis, peut le présenter
+            String etag = resourceVersionService.getArticleETag(userId, articleId);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag).cacheControl(ETags.REVALIDATE)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+
+            // Le corps sérialisé est partagé par tous les abonnés du thème
+            String bodyKey = resourceVersionService.getArticleBodyKey(articleId);
+            JsonResponseCache.CachedBody articleBody = jsonResponseCache.get(bodyKey).orElse(null);
+            if (articleBody == null) {
+                Articles article = DataSourceRouting.readFromPrimary(
+                        () -> verifyAndGetArticleWithAuthorAndThemeById(articleId));
+                verifySubscribedToTheme(userId, article.getThemeId());
+                SingleArticleResponse response = DataSourceRouting.readFromPrimary(
+                        () -> buildSingleArticleResponse(article));
+                articleBody = jsonResponseCache.put(bodyKey, response, article.getThemeId());
+            } else {
+                verifySubscribedToTheme(userId, articleBody.themeId());
+            }
+
+            return articleBody.toResponse(
+                    ResponseEntity.ok().cacheControl(ETags.REVALIDATE), etag, acceptEncoding);
+        } catch (ApiException e) {
+            return GlobalExceptionHandler.handleApiException(e);
+        }
+    }
+
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<?> getArticleComments(
+            @PathVariable("id") Long articleId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
         try {
             Long userId = Long.parseLong((String) authentication.getPrincipal());
+            PageCursor pageCursor = verifyAndDecodeCursor(cursor);
+            int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
 
             Articles article = verifyAndGetArticleById(articleId);
 
-            // Vérifier si l'utilisateur est abonné au thème de l'article
             boolean isSubscribed = subscriptionsService.isUserSubscribedToTheme(userId, article.getThemeId());
             if (!isSubscribed) {
                 throw new ApiException(
                         "Access denied",
-                        List.of("You must be subscribed to this theme to view the article."),
+                        List.of("You must be subscribed to this theme to view the comments."),
                         HttpStatus.FORBIDDEN,
                         LocalDateTime.now()
                 );
             }
 
-            ArticleSummaryResponse articleDto = articleMapper.toDtoArticle(article);
-            String author = getVerifiedUserById(article.getUserId()).getUsername();
-            String theme = article.getTheme().getTitle();
+            Slice<Comments> commentsPage = commentsService.getCommentsPageByArticleId(articleId, pageCursor, pageSize);
 
             List<CommentResponse> comments = new ArrayList<>();
-            commentsMapper.toDtoComments(commentsService.getAllCommentsByArticleId(articleId)).forEach(comments::add);
+            commentsMapper.toDtoComments(commentsPage.getContent()).forEach(comments::add);
 
-            return ResponseEntity.ok(new SingleArticleResponse(
-                    articleId, author, articleDto.publicationDate(),
-                    theme, articleDto.title(), articleDto.description(), comments
-            ));
+            return ResponseEntity.ok(new CommentsPageResponse(comments, getNextCommentsCursor(commentsPage)));
         } catch (ApiException e) {
             return GlobalExceptionHandler.handleApiException(e);
         }
@@ -145,7 +258,10 @@ public class ArticlesController {
                 );
             }
 
-            commentsService.createComment(request, userId, articleId);
+            if (commentsService.submitComment(request, userId, articleId)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(new MessageResponse("Comment has been accepted and will be published shortly !"));
+            }
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(new MessageResponse("Comment has been successfully published !"));
         } catch (ApiException e) {
@@ -155,37 +271,85 @@ public class ArticlesController {
 
     // === PRIVATE HELPERS ===
 
-    private Users getVerifiedUserById(Long userId) {
-        return userService.getUserById(userId).orElseThrow(() ->
-                new ApiException(
-                        "User not found",
-                        List.of("No user with ID: " + userId),
-                        HttpStatus.NOT_FOUND,
-                        LocalDateTime.now()
-                )
+    private void verifySubscribedToTheme(Long userId, Long themeId) {
+        // Vérifier si l'utilisateur est abonné au thème de l'article
+        boolean isSubscribed = subscriptionsService.isUserSubscribedToTheme(userId, themeId);
+        if (!isSubscribed) {
+            throw new ApiException(
+                    "Access denied",
+                    List.of("You must be subscribed to this theme to view the article."),
+                    HttpStatus.FORBIDDEN,
+                    LocalDateTime.now()
+            );
+        }
+    }
+
+    private SingleArticleResponse buildSingleArticleResponse(Articles article) {
+        Long articleId = article.getId();
+        ArticleSummaryResponse articleDto = articleMapper.toDtoArticle(article);
+        String author = article.getUser().getUsername();
+        String theme = article.getTheme().getTitle();
+
+        Slice<Comments> commentsPage = commentsService.getCommentsPageByArticleId(
+                articleId, null, ARTICLE_COMMENTS_PAGE_SIZE);
+        long commentsCount = commentsPage.hasNext()
+                ? commentsService.countCommentsByArticleId(articleId)
+                : commentsPage.getNumberOfElements();
+
+        List<CommentResponse> comments = new ArrayList<>();
+        commentsMapper.toDtoComments(commentsPage.getContent()).forEach(comments::add);
+
+        return new SingleArticleResponse(
+                articleId, author, articleDto.publicationDate(),
+                theme, articleDto.title(), articleDto.description(), comments,
+                commentsCount, getNextCommentsCursor(commentsPage)
         );
     }
 
     private Articles verifyAndGetArticleById(Long articleId) {
-        return articleService.getArticleById(articleId).orElseThrow(() ->
+        return articleService.getArticleById(articleId).orElseThrow(() -> articleNotFound(articleId));
+    }
+
+    private Articles verifyAndGetArticleWithAuthorAndThemeById(Long articleId) {
+        return articleService.getArticleWithAuthorAndThemeById(articleId).orElseThrow(() -> articleNotFound(articleId));
+    }
+
+    private ApiException articleNotFound(Long articleId) {
+        return new ApiException(
+                "Article not found",
+                List.of("No article with ID: " + articleId),
+                HttpStatus.NOT_FOUND,
+                LocalDateTime.now()
+        );
+    }
+
+    private PageCursor verifyAndDecodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        return PageCursor.decode(cursor).orElseThrow(() ->
                 new ApiException(
-                        "Article not found",
-                        List.of("No article with ID: " + articleId),
-                        HttpStatus.NOT_FOUND,
+                        "Bad request",
+                        List.of("Invalid pagination cursor"),
+                        HttpStatus.BAD_REQUEST,
                         LocalDateTime.now()
                 )
         );
     }
 
+    private String getNextCommentsCursor(Slice<Comments> commentsPage) {
+        if (!commentsPage.hasNext()) {
+            return null;
+        }
+
+        Comments last = commentsPage.getContent().get(commentsPage.getNumberOfElements() - 1);
+        return new PageCursor(last.getCreatedAt(), last.getId()).encode();
+    }
+
     private Themes verifyOrCreateThemeByTitle(String themeTitle) {
-        return themeService.getThemes().stream()
-                .filter(theme -> theme.getTitle().equalsIgnoreCase(themeTitle))
-                .findFirst()
-                .orElseGet(() -> {
-                    Themes newTheme = new Themes();
-                    newTheme.setTitle(themeTitle);
-                    return themeService.createTheme(newTheme);
-                });
+        return themeService.getThemeByTitle(themeTitle)
+                .orElseGet(() -> themeService.createThemeIfAbsent(themeTitle));
     }
 
 
@@ -45,8 +45,6 @@ public class AuthController {
                                       BindingResult bindingResult) {
         try {
             checkBodyPayloadErrors(bindingResult);
-            checkIfUsernameIsInUse(request.username());
-            checkIfEmailIsInUse(request.email());
 
             Users user = userService.saveUserBySignUp(request);
             UserInfoResponse userDto = userMapper.toDtoUser(user);
@@ -91,18 +89,6 @@ public class AuthController {
         }
     }
 
-    private void checkIfUsernameIsInUse(String username) {
-        if (userService.isUsernameInUse(username)) {
-            GlobalExceptionHandler.handleLogicError("Username is already in use", HttpStatus.CONFLICT);
-        }
-    }
-
-    private void checkIfEmailIsInUse(String email) {
-        if (userService.isEmailInUse(email)) {
-            GlobalExceptionHandler.handleLogicError("Email is already in use", HttpStatus.CONFLICT);
-        }
-    }
-
     private void checkUserPassword(String requestPassword, Users user) {
         if (!userService.isPasswordValid(requestPassword, user)) {
             GlobalExceptionHandler.handleLogicError("Password is incorrect", HttpStatus.UNAUTHORIZED);
@@ -110,13 +96,12 @@ public class AuthController {
     }
 
     private Users getUserFromIdentifier(String identifier) {
-        Optional<Users> userFromEmail = userService.getUserByEmail(identifier);
-        Optional<Users> userFromUsername = userService.getUserByUsername(identifier);
+        Optional<Users> user = userService.getUserByIdentifier(identifier);
 
-        if (userFromEmail.isEmpty() && userFromUsername.isEmpty()) {
+        if (user.isEmpty()) {
             GlobalExceptionHandler.handleLogicError("Invalid username/email", HttpStatus.UNAUTHORIZED);
         }
 
-        return userFromEmail.orElseGet(userFromUsername::get);
+        return user.get();
     }
 }
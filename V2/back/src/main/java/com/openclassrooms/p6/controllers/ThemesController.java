@@ -3,12 +3,12 @@ package com.openclassrooms.p6.controllers;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 
-import com.openclassrooms.p6.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import com.openclassrooms.p6.exception.ApiException;
@@ -17,14 +17,14 @@ import com.openclassrooms.p6.mapper.SubscriptionMapper;
 import com.openclassrooms.p6.mapper.ThemeMapper;
 import com.openclassrooms.p6.model.Subscriptions;
 import com.openclassrooms.p6.model.Themes;
-import com.openclassrooms.p6.model.Users;
 import com.openclassrooms.p6.payload.response.MessageResponse;
 import com.openclassrooms.p6.payload.response.SingleThemeResponse;
 import com.openclassrooms.p6.payload.response.SingleThemeSubscriptionResponse;
+import com.openclassrooms.p6.service.JsonResponseCache;
+import com.openclassrooms.p6.service.ResourceVersionService;
 import com.openclassrooms.p6.service.SubscriptionsService;
 import com.openclassrooms.p6.service.ThemeService;
-import com.openclassrooms.p6.service.UserService;
-import com.openclassrooms.p6.utils.JwtUtil;
+import com.openclassrooms.p6.utils.ETags;
 
 @RestController
 @RequestMapping("/api/themes")
@@ -43,33 +43,41 @@ public class ThemesController {
     private ThemeMapper themeMapper;
 
     @Autowired
-    private UserService userService;
+    private ResourceVersionService resourceVersionService;
 
     @Autowired
-    private JwtUtil jwtUtil;
-
-    @Autowired
-    private AuthService authService;
+    private JsonResponseCache jsonResponseCache;
 
 
     @GetMapping("")
-    public ResponseEntity<?> getAllThemes(@RequestHeader("Authorization") String authorizationHeader) {
+    public ResponseEntity<?> getAllThemes(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication) {
         try {
-            Long userId = authService.verifyUserValidityFromToken(authorizationHeader);
+            String etag = resourceVersionService.getThemesETag();
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag).cacheControl(ETags.REVALIDATE)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
 
-            List<Themes> themesEntityList = themeService.getThemes();
-            Iterable<SingleThemeResponse> themesDto = themeMapper.toDtoThemes(themesEntityList);
+            // Le tag identifie la version de la liste : il sert aussi de clé au corps sérialisé
+            JsonResponseCache.CachedBody themesBody = jsonResponseCache.get(etag)
+                    .orElseGet(() -> jsonResponseCache.put(
+                            etag, themeMapper.toDtoThemes(themeService.getThemes()), null));
 
-            return ResponseEntity.status(HttpStatus.OK).body(themesDto);
+            return themesBody.toResponse(
+                    ResponseEntity.status(HttpStatus.OK).cacheControl(ETags.REVALIDATE), etag, acceptEncoding);
         } catch (ApiException e) {
             return GlobalExceptionHandler.handleApiException(e);
         }
     }
 
     @GetMapping("/subscribed")
-    public ResponseEntity<?> getSubscribedThemes(@RequestHeader("Authorization") String authorizationHeader) {
+    public ResponseEntity<?> getSubscribedThemes(Authentication authentication) {
         try {
-            Long userId = authService.verifyUserValidityFromToken(authorizationHeader);
+            Long userId = Long.parseLong((String) authentication.getPrincipal());
 
             Iterable<Subscriptions> subscriptions = subscriptionsService.findAllUserSubscriptions(userId);
             Iterable<SingleThemeSubscriptionResponse> subscriptionsDto = subscriptionsMapper.toDtoSubscriptions(subscriptions);
@@ -83,26 +91,27 @@ public class ThemesController {
     @PostMapping("/subscribe/")
     public ResponseEntity<?> subscribe(
             @RequestParam final Long themeId,
-            @RequestHeader("Authorization") String authorizationHeader) {
+            Authentication authentication) {
         try {
-            Long userId = authService.verifyUserValidityFromToken(authorizationHeader);
+            Long userId = Long.parseLong((String) authentication.getPrincipal());
             verifyAndGetThemeById(themeId);
 
-            Subscriptions subscription = getUserThemeSubscription(userId, themeId);
+            if (subscriptionsService.isUserSubscribedToTheme(userId, themeId)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(new MessageResponse("You are already subscribed to this theme!"));
+            }
 
-            if (subscription == null) {
-                subscriptionsService.createSubscription(userId, themeId);
-                return ResponseEntity.status(HttpStatus.CREATED)
-                        .body(new MessageResponse("Successfully subscribed to the theme!"));
+            if (subscriptionsService.updateThemeSubscription(userId, themeId, true)) {
+                return ResponseEntity.ok(new MessageResponse("Successfully subscribed to the theme!"));
             }
 
-            if (subscription.getIsSubscribed()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new MessageResponse("You are already subscribed to this theme!"));
+            if (subscriptionsService.createSubscriptionIfAbsent(userId, themeId).isPresent()) {
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .body(new MessageResponse("Successfully subscribed to the theme!"));
             }
 
-            subscriptionsService.updateThemeSubscription(subscription, true);
-            return ResponseEntity.ok(new MessageResponse("Successfully subscribed to the theme!"));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse("You are already subscribed to this theme!"));
 
         } catch (ApiException e) {
             return GlobalExceptionHandler.handleApiException(e);
@@ -112,25 +121,23 @@ public class ThemesController {
     @PostMapping("/unsubscribe/")
     public ResponseEntity<?> unsubscribe(
             @RequestParam final Long themeId,
-            @RequestHeader("Authorization") String authorizationHeader) {
+            Authentication authentication) {
         try {
-            Long userId = authService.verifyUserValidityFromToken(authorizationHeader);
+            Long userId = Long.parseLong((String) authentication.getPrincipal());
             verifyAndGetThemeById(themeId);
 
-            Subscriptions subscription = getUserThemeSubscription(userId, themeId);
+            if (subscriptionsService.isUserSubscribedToTheme(userId, themeId)
+                    && subscriptionsService.updateThemeSubscription(userId, themeId, false)) {
+                return ResponseEntity.ok(new MessageResponse("Successfully unsubscribed from the theme!"));
+            }
 
-            if (subscription == null) {
+            if (!subscriptionsService.subscriptionExists(userId, themeId)) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new MessageResponse("Subscription does not exist!"));
             }
 
-            if (!subscription.getIsSubscribed()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new MessageResponse("You cannot unsubscribe from a theme you are not subscribed to!"));
-            }
-
-            subscriptionsService.updateThemeSubscription(subscription, false);
-            return ResponseEntity.ok(new MessageResponse("Successfully unsubscribed from the theme!"));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse("You cannot unsubscribe from a theme you are not subscribed to!"));
 
         } catch (ApiException e) {
             return GlobalExceptionHandler.handleApiException(e);
@@ -139,16 +146,6 @@ public class ThemesController {
 
     // ----------------------- PRIVATE METHODS ----------------------------
 
-    private Users getVerifiedUserById(Long userId) {
-        return userService.getUserById(userId)
-                .orElseThrow(() -> new ApiException(
-                        "User not found",
-                        List.of("User not found"),
-                        HttpStatus.NOT_FOUND,
-                        LocalDateTime.now()));
-    }
-
-
     private Themes verifyAndGetThemeById(Long themeId) {
         return themeService.getThemeById(themeId)
                 .orElseThrow(() -> new ApiException(
@@ -157,14 +154,4 @@ public class ThemesController {
                         HttpStatus.NOT_FOUND,
                         LocalDateTime.now()));
     }
-
-
-    private Subscriptions getUserThemeSubscription(Long userId, Long themeId) {
-        Iterable<Subscriptions> subscriptions = subscriptionsService.findAllUserSubscriptions(userId);
-
-        return StreamSupport.stream(subscriptions.spliterator(), false)
-                .filter(s -> s.getThemeId().equals(themeId))
-                .findFirst()
-                .orElse(null);
-    }
 }
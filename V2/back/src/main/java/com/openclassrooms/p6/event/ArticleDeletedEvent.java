@@ -0,0 +1,7 @@
+package com.openclassrooms.p6.event;
+
+/**
+ * Published once an article has been deleted.
+ */
+public record ArticleDeletedEvent(Long articleId, Long themeId) {
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.p6.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published once an article has been persisted.
+ *
+ * <p>
+ * Carries the indexed text of the article so listeners do not have to read it
+ * back from the database.
+ */
+public record ArticlePublishedEvent(
+        Long articleId,
+        Long themeId,
+        Long userId,
+        LocalDateTime createdAt,
+        String title,
+        String description,
+        String content) {
+}
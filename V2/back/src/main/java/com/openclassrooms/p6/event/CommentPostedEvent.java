@@ -0,0 +1,7 @@
+package com.openclassrooms.p6.event;
+
+/**
+ * Published once a comment has been persisted.
+ */
+public record CommentPostedEvent(Long commentId, Long articleId, Long userId) {
+}
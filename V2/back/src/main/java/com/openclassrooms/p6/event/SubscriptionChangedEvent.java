@@ -0,0 +1,8 @@
+package com.openclassrooms.p6.event;
+
+/**
+ * Published when a user subscribes to or unsubscribes from a theme. Only
+ * actual state changes are published.
+ */
+public record SubscriptionChangedEvent(Long userId, Long themeId, boolean subscribed) {
+}
@@ -0,0 +1,7 @@
+package com.openclassrooms.p6.event;
+
+/**
+ * Published once a theme has been persisted.
+ */
+public record ThemeCreatedEvent(Long themeId) {
+}
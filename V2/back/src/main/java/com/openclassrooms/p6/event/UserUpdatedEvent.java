@@ -0,0 +1,7 @@
+package com.openclassrooms.p6.event;
+
+/**
+ * Published when a user (username, email or password) is saved or deleted.
+ */
+public record UserUpdatedEvent(Long userId) {
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.p6.feed;
+
+import java.time.LocalDateTime;
+
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+
+/**
+ * Detached copy of an {@link ArticleSummaryView}, safe to keep in a cache and
+ * share between the feeds of every user.
+ */
+public record ArticleSummary(
+        Long id,
+        String title,
+        String description,
+        LocalDateTime createdAt,
+        String username) implements ArticleSummaryView {
+
+    public static ArticleSummary of(ArticleSummaryView view) {
+        return view instanceof ArticleSummary summary
+                ? summary
+                : new ArticleSummary(view.getId(), view.getTitle(), view.getDescription(),
+                        view.getCreatedAt(), view.getUsername());
+    }
+
+    public FeedEntry toFeedEntry() {
+        return new FeedEntry(id, createdAt);
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
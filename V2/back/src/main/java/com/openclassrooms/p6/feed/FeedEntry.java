@@ -0,0 +1,22 @@
+package com.openclassrooms.p6.feed;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Position of an article in a home feed.
+ *
+ * @param articleId Identifier of the article.
+ * @param createdAt Publication date of the article.
+ */
+public record FeedEntry(long articleId, LocalDateTime createdAt) {
+
+    /**
+     * Feed order: {@code (createdAt, articleId)} descending, the order of the
+     * feed keyset queries.
+     */
+    public static final Comparator<FeedEntry> NEWEST_FIRST = Comparator
+            .comparing(FeedEntry::createdAt)
+            .thenComparingLong(FeedEntry::articleId)
+            .reversed();
+}
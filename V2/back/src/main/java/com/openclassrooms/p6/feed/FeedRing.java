@@ -0,0 +1,162 @@
+package com.openclassrooms.p6.feed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.openclassrooms.p6.utils.PageCursor;
+
+/**
+ * Bounded, materialized home feed of a user: the most recent entries of the
+ * feed, newest first, in a circular buffer.
+ *
+ * <p>
+ * New articles are almost always the newest entry, so they are added in
+ * constant time by moving the head of the buffer back, overwriting the oldest
+ * entry once the ring is full. A ring is complete while it holds every entry
+ * of the feed; once an entry has been dropped, pages reaching past its oldest
+ * entry must be read from the database.
+ *
+ * <p>
+ * Instances are shared between the request threads and the publication
+ * listeners, so every method is synchronized.
+ */
+public final class FeedRing {
+
+    private final FeedEntry[] entries;
+    private int head;
+    private int count;
+    private boolean complete;
+
+    /**
+     * @param capacity    Maximum number of entries kept.
+     * @param newestFirst Initial entries, newest first, at most
+     *                    {@code capacity} of them.
+     * @param complete    True if the initial entries are the whole feed.
+     */
+    public FeedRing(int capacity, List<FeedEntry> newestFirst, boolean complete) {
+        if (newestFirst.size() > capacity) {
+            throw new IllegalArgumentException("More entries than the capacity of the ring");
+        }
+
+        this.entries = new FeedEntry[capacity];
+        newestFirst.toArray(this.entries);
+        this.count = newestFirst.size();
+        this.complete = complete;
+    }
+
+    /**
+     * Adds an entry at its position in the feed, dropping the oldest entry if
+     * the ring is full.
+     *
+     * @param entry The entry to add.
+     */
+    public synchronized void add(FeedEntry entry) {
+        int position = positionOf(entry);
+        if (position < count && FeedEntry.NEWEST_FIRST.compare(get(position), entry) == 0) {
+            return;
+        }
+        if (position == entries.length) {
+            complete = false;
+            return;
+        }
+
+        if (count == entries.length) {
+            complete = false;
+        } else {
+            count++;
+        }
+
+        if (position == 0) {
+            head = Math.floorMod(head - 1, entries.length);
+            entries[head] = entry;
+            return;
+        }
+
+        for (int i = count - 1; i > position; i--) {
+            set(i, get(i - 1));
+        }
+        set(position, entry);
+    }
+
+    /**
+     * Removes the entry of an article.
+     *
+     * @param articleId Identifier of the article.
+     * @return True if the ring held the article.
+     */
+    public synchronized boolean remove(long articleId) {
+        for (int i = 0; i < count; i++) {
+            if (get(i).articleId() == articleId) {
+                for (int j = i; j < count - 1; j++) {
+                    set(j, get(j + 1));
+                }
+                set(count - 1, null);
+                count--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the entries strictly after the cursor, newest first.
+     *
+     * @param cursor Position of the last entry of the previous page, or null
+     *               for the first page.
+     * @param limit  Maximum number of entries.
+     * @return The entries of the page.
+     */
+    public synchronized List<FeedEntry> page(PageCursor cursor, int limit) {
+        int from = cursor == null ? 0 : positionAfter(new FeedEntry(cursor.id(), cursor.createdAt()));
+        int to = Math.min(count, from + limit);
+
+        List<FeedEntry> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(get(i));
+        }
+        return page;
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Number of entries strictly newer than the given one.
+     */
+    private int positionOf(FeedEntry entry) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (FeedEntry.NEWEST_FIRST.compare(get(middle), entry) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Number of entries newer than or equal to the given one.
+     */
+    private int positionAfter(FeedEntry entry) {
+        int position = positionOf(entry);
+        return position < count && FeedEntry.NEWEST_FIRST.compare(get(position), entry) == 0
+                ? position + 1
+                : position;
+    }
+
+    private FeedEntry get(int index) {
+        return entries[(head + index) % entries.length];
+    }
+
+    private void set(int index, FeedEntry entry) {
+        entries[(head + index) % entries.length] = entry;
+    }
+}
@@ -0,0 +1,181 @@
+package com.openclassrooms.p6.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of the pending comments.
+ *
+ * <p>
+ * Every record is written as its length, a CRC32C checksum and its payload.
+ * A record torn by a crash fails its checksum and ends the recovery, the tail
+ * of the file being dropped. {@link #sync(long)} commits in groups: a caller
+ * whose record was already forced to disk by a concurrent caller returns
+ * without forcing again. Callers serialize {@link #append(PendingComment)} and
+ * {@link #reset()}.
+ */
+public class CommentLog implements Closeable {
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile long syncedPosition;
+
+    private CommentLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static CommentLog open(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        return new CommentLog(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Reads the records of the log and positions it after the last valid one.
+     *
+     * @return The recovered comments, in their order of submission.
+     * @throws IOException If the log cannot be read.
+     */
+    public List<PendingComment> recover() throws IOException {
+        List<PendingComment> comments = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = 0;
+
+        while (true) {
+            header.clear();
+            if (channel.read(header, position) < HEADER_SIZE) {
+                break;
+            }
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            if (channel.read(payload, position + HEADER_SIZE) < length || checksum(payload.array()) != checksum) {
+                break;
+            }
+            payload.flip();
+            comments.add(decode(payload));
+            position += HEADER_SIZE + length;
+        }
+
+        channel.truncate(position);
+        channel.position(position);
+        syncedPosition = position;
+        return comments;
+    }
+
+    /**
+     * Writes a record at the end of the log, without forcing it to disk.
+     *
+     * @return The position following the record, to pass to {@link #sync(long)}.
+     * @throws IOException If the record cannot be written, in which case the
+     *                     log is left as it was.
+     */
+    public long append(PendingComment comment) throws IOException {
+        byte[] payload = encode(comment);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+
+        long start = channel.position();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            return channel.position();
+        } catch (IOException e) {
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Forces the log to disk up to the given position at least.
+     */
+    public void sync(long position) throws IOException {
+        if (syncedPosition >= position) {
+            return;
+        }
+
+        syncLock.lock();
+        try {
+            if (syncedPosition < position) {
+                long forcedPosition = channel.position();
+                channel.force(false);
+                syncedPosition = forcedPosition;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Empties the log once every record it holds has been persisted.
+     */
+    public void reset() throws IOException {
+        syncLock.lock();
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+            syncedPosition = 0;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] encode(PendingComment comment) {
+        byte[] text = comment.comment().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(4 * Long.BYTES + text.length)
+                .putLong(comment.ingestId().getMostSignificantBits())
+                .putLong(comment.ingestId().getLeastSignificantBits())
+                .putLong(comment.userId())
+                .putLong(comment.articleId())
+                .put(text)
+                .array();
+    }
+
+    private static PendingComment decode(ByteBuffer payload) {
+        UUID ingestId = new UUID(payload.getLong(), payload.getLong());
+        long userId = payload.getLong();
+        long articleId = payload.getLong();
+        byte[] text = new byte[payload.remaining()];
+        payload.get(text);
+        return new PendingComment(ingestId, userId, articleId, new String(text, StandardCharsets.UTF_8), true);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
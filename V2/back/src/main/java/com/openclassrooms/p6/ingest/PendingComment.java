@@ -0,0 +1,36 @@
+package com.openclassrooms.p6.ingest;
+
+import java.util.UUID;
+
+import com.openclassrooms.p6.model.Comments;
+
+/**
+ * Comment accepted by the write-behind path and not yet persisted.
+ *
+ * @param ingestId  Unique identifier of the submission, stored with the
+ *                  comment so that a replay of the log never inserts it twice.
+ * @param userId    Identifier of the author.
+ * @param articleId Identifier of the commented article.
+ * @param comment   Text of the comment.
+ * @param recovered Whether the comment may already have been persisted: it was
+ *                  read back from the log at startup, or put back after a
+ *                  failed flush whose transaction may have committed.
+ */
+public record PendingComment(UUID ingestId, Long userId, Long articleId, String comment, boolean recovered) {
+
+    /**
+     * @return This comment, marked as possibly persisted already.
+     */
+    public PendingComment asRecovered() {
+        return recovered ? this : new PendingComment(ingestId, userId, articleId, comment, true);
+    }
+
+    public Comments toEntity() {
+        Comments comments = new Comments();
+        comments.setIngestId(ingestId.toString());
+        comments.setUserId(userId);
+        comments.setArticleId(articleId);
+        comments.setComment(comment);
+        return comments;
+    }
+}
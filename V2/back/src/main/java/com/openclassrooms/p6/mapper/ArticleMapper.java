@@ -8,6 +8,7 @@ import org.mapstruct.Mappings;
 
 import com.openclassrooms.p6.model.Articles;
 import com.openclassrooms.p6.payload.response.ArticleSummaryResponse;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
 
 @Mapper(componentModel = "spring")
 public interface ArticleMapper {
@@ -23,4 +24,16 @@ public interface ArticleMapper {
 
 
     Iterable<ArticleSummaryResponse> toDtoArticles(List<Articles> articles);
+
+
+    @Mappings({
+            @Mapping(target = "id", source = "id"),
+            @Mapping(target = "publicationDate", source = "createdAt"),
+            @Mapping(target = "username", source = "username"),
+            @Mapping(target = "articleId", source = "id")
+    })
+    ArticleSummaryResponse toDtoArticleSummary(ArticleSummaryView articleSummary);
+
+
+    List<ArticleSummaryResponse> toDtoArticleSummaries(List<ArticleSummaryView> articleSummaries);
 }
\ No newline at end of file
@@ -7,11 +7,14 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
@@ -20,15 +23,29 @@ import lombok.Data;
  */
 @Entity
 @Data
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_article_created", columnList = "articleid, createdat, id")
+})
 public class Comments {
 
+    /**
+     * Identifiers are reserved 50 at a time, so that a batch of inserts does
+     * not read the sequence for every row.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Identifier of the submission of a comment posted through the write-behind
+     * log, null otherwise.
+     */
+    @Column(name = "ingestid", length = 36, unique = true)
+    private String ingestId;
 
-    @ManyToOne
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "userid", nullable = false, insertable = false, updatable = false)
     private Users user;
 
@@ -36,7 +53,7 @@ public class Comments {
     private Long userId;
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "articleid", nullable = false, insertable = false, updatable = false)
     private Articles article;
 
@@ -1,6 +1,7 @@
 package com.openclassrooms.p6.model;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -10,7 +11,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 
 /**
@@ -18,7 +22,9 @@ import lombok.Data;
  */
 @Entity
 @Data
-@Table(name = "themes")
+@Table(name = "themes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_themes_normalized_title", columnNames = "normalizedtitle")
+})
 public class Themes {
 
     @Id
@@ -28,6 +34,12 @@ public class Themes {
     @Column(name = "title", nullable = false, length = 255)
     private String title;
 
+    /**
+     * Trimmed, lower-cased title backing the case-insensitive unique lookup.
+     */
+    @Column(name = "normalizedtitle", length = 255)
+    private String normalizedTitle;
+
 
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
@@ -41,4 +53,20 @@ public class Themes {
     @Column(name = "updatedat", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP", nullable = false)
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    private void updateNormalizedTitle() {
+        normalizedTitle = normalizeTitle(title);
+    }
+
+    /**
+     * Normalizes a theme title for case-insensitive comparisons.
+     *
+     * @param title The title to normalize.
+     * @return The trimmed, lower-cased title.
+     */
+    public static String normalizeTitle(final String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
 }
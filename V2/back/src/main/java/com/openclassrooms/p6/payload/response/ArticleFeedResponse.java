@@ -0,0 +1,12 @@
+package com.openclassrooms.p6.payload.response;
+
+import java.util.List;
+
+/**
+ * One page of the subscription feed, with the cursor of the next page
+ * ({@code null} when the feed is exhausted).
+ */
+public record ArticleFeedResponse(
+                List<ArticleSummaryResponse> articles,
+                String nextCursor) {
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.p6.payload.response;
+
+import java.util.List;
+
+/**
+ * One page of the comments of an article, with the cursor of the next page
+ * ({@code null} when there are no more comments).
+ */
+public record CommentsPageResponse(
+                List<CommentResponse> comments,
+                String nextCursor) {
+}
@@ -10,6 +10,8 @@ public record SingleArticleResponse(
                 String theme,
                 String title,
                 String description,
-                List<CommentResponse> comments) {
+                List<CommentResponse> comments,
+                long commentsCount,
+                String nextCommentsCursor) {
 
-}
\ No newline at end of file
+}
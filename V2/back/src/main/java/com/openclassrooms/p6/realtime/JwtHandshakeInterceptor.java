@@ -0,0 +1,82 @@
+package com.openclassrooms.p6.realtime;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.openclassrooms.p6.exception.ApiException;
+import com.openclassrooms.p6.service.AuthService;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Authenticates a WebSocket handshake from the JWT passed in its
+ * {@code token} query parameter, with the same checks as the REST endpoints.
+ * The identifier of the user and the claims of the token are stored in the
+ * attributes of the session, for the token to be checked again when the user
+ * changes.
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String USER_ID_ATTRIBUTE = "userId";
+    static final String CLAIMS_ATTRIBUTE = "claims";
+
+    private final JwtUtil jwtUtil;
+    private final AuthService authService;
+
+    public JwtHandshakeInterceptor(JwtUtil jwtUtil, AuthService authService) {
+        this.jwtUtil = jwtUtil;
+        this.authService = authService;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+        Claims claims = token == null ? null : jwtUtil.parseVerifiedClaims(token).orElse(null);
+        Long userId = claims == null ? null : JwtUtil.extractUserId(claims).orElse(null);
+
+        if (userId == null || !isAuthenticated(userId, claims)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        attributes.put(USER_ID_ATTRIBUTE, userId);
+        attributes.put(CLAIMS_ATTRIBUTE, claims);
+        return true;
+    }
+
+    /**
+     * Checks that the user still exists and did not revoke the token by
+     * changing its password.
+     *
+     * @param userId Identifier of the user.
+     * @param claims Verified claims of the token.
+     * @return True if the token is still accepted.
+     */
+    boolean isAuthenticated(Long userId, Claims claims) {
+        try {
+            authService.getAuthenticatedUserId(new UsernamePasswordAuthenticationToken(
+                    userId.toString(), claims, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+            return true;
+        } catch (ApiException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Exception exception) {
+    }
+}
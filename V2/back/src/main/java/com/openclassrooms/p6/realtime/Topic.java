@@ -0,0 +1,12 @@
+package com.openclassrooms.p6.realtime;
+
+/**
+ * Subject a WebSocket session can subscribe to: the new articles of a theme,
+ * or the new comments of an article.
+ */
+public record Topic(Kind kind, long id) {
+
+    public enum Kind {
+        THEME, ARTICLE
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.p6.realtime;
+
+import java.util.List;
+
+/**
+ * JSON messages exchanged on the push channel.
+ */
+final class UpdateMessages {
+
+    private UpdateMessages() {
+    }
+
+    /**
+     * Sent by a client to follow or stop following a topic, e.g.
+     * {@code {"action":"subscribe","topic":"theme","id":3}}.
+     */
+    record SubscriptionRequest(String action, String topic, Long id) {
+    }
+
+    /**
+     * Acknowledges a {@link SubscriptionRequest}.
+     */
+    record SubscriptionAck(String type, String action, String topic, Long id) {
+    }
+
+    /**
+     * Rejects a {@link SubscriptionRequest}.
+     */
+    record Error(String type, String message) {
+    }
+
+    /**
+     * Articles published in a followed theme since the previous flush.
+     */
+    record NewArticles(String type, Long themeId, List<Long> articleIds) {
+    }
+
+    /**
+     * Comments posted on a followed article since the previous flush.
+     */
+    record NewComments(String type, Long articleId, List<Long> commentIds) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.openclassrooms.p6.realtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.event.CommentPostedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes the new articles and comments to the sessions following their theme
+ * or article.
+ *
+ * <p>
+ * Events are not sent one by one: they are accumulated per topic and flushed
+ * every {@code realtime.flush-interval-ms}, so a burst of comments on an
+ * article becomes a single message per session, serialized once per topic.
+ * Each session is then written to from its own virtual thread, so a slow
+ * client does not delay the others.
+ */
+@Component
+public class UpdatesBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(UpdatesBroadcaster.class);
+
+    /**
+     * Most recent identifiers kept per topic and flush; clients reload the
+     * list when there are more.
+     */
+    private static final int MAX_IDS_PER_MESSAGE = 100;
+
+    private final UpdatesSessionRegistry sessionRegistry;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Map<Topic, SequencedSet<Long>> pendingUpdates = new HashMap<>();
+
+    public UpdatesBroadcaster(UpdatesSessionRegistry sessionRegistry, ObjectMapper objectMapper) {
+        this.sessionRegistry = sessionRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePublished(ArticlePublishedEvent event) {
+        enqueue(new Topic(Topic.Kind.THEME, event.themeId()), event.articleId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentPosted(CommentPostedEvent event) {
+        enqueue(new Topic(Topic.Kind.ARTICLE, event.articleId()), event.commentId());
+    }
+
+    /**
+     * Sends the updates accumulated since the previous flush.
+     */
+    @Scheduled(fixedDelayString = "${realtime.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Topic, SequencedSet<Long>> updates;
+        synchronized (this) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            updates = pendingUpdates;
+            pendingUpdates = new HashMap<>();
+        }
+
+        Map<WebSocketSession, List<TextMessage>> messagesBySession = new HashMap<>();
+        updates.forEach((topic, ids) -> {
+            List<WebSocketSession> sessions = sessionRegistry.getSessions(topic);
+            if (sessions.isEmpty()) {
+                return;
+            }
+
+            TextMessage message = toMessage(topic, ids);
+            if (message != null) {
+                sessions.forEach(session ->
+                        messagesBySession.computeIfAbsent(session, s -> new ArrayList<>()).add(message));
+            }
+        });
+
+        messagesBySession.forEach((session, messages) -> sendExecutor.execute(() -> send(session, messages)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.close();
+    }
+
+    private synchronized void enqueue(Topic topic, long id) {
+        SequencedSet<Long> ids = pendingUpdates.computeIfAbsent(topic, t -> new LinkedHashSet<>());
+        ids.add(id);
+        if (ids.size() > MAX_IDS_PER_MESSAGE) {
+            ids.removeFirst();
+        }
+    }
+
+    private TextMessage toMessage(Topic topic, SequencedSet<Long> ids) {
+        Object message = switch (topic.kind()) {
+            case THEME -> new UpdateMessages.NewArticles("articles", topic.id(), List.copyOf(ids));
+            case ARTICLE -> new UpdateMessages.NewComments("comments", topic.id(), List.copyOf(ids));
+        };
+
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize the update of {}", topic, e);
+            return null;
+        }
+    }
+
+    private void send(WebSocketSession session, List<TextMessage> messages) {
+        try {
+            for (TextMessage message : messages) {
+                session.sendMessage(message);
+            }
+        } catch (IOException | RuntimeException e) {
+            // La session est fermée par le décorateur si le client ne suit pas
+            logger.debug("Could not push to session {}", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.openclassrooms.p6.realtime;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+/**
+ * Open push sessions and the topics each of them follows.
+ *
+ * <p>
+ * Every session is wrapped in a {@link ConcurrentWebSocketSessionDecorator}:
+ * messages sent while a previous send is still in progress are buffered, and a
+ * client that does not read its messages within {@code realtime.send-time-limit}
+ * or lets more than {@code realtime.buffer-size-limit} bytes pile up is
+ * disconnected rather than slowing down the broadcast to the other clients.
+ *
+ * <p>
+ * Each topic a session follows is kept with the theme whose subscription
+ * grants it, so that the topics are dropped when the user unsubscribes from
+ * that theme.
+ */
+@Component
+public class UpdatesSessionRegistry {
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Map<Topic, Long>> topicsBySession = new ConcurrentHashMap<>();
+    private final Map<Topic, Set<String>> sessionsByTopic = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    @Value("${realtime.send-time-limit:5s}")
+    private Duration sendTimeLimit;
+
+    @Value("${realtime.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Value("${realtime.max-topics-per-session:200}")
+    private int maxTopicsPerSession;
+
+    /**
+     * Registers a new session, authenticated by the
+     * {@link JwtHandshakeInterceptor}.
+     *
+     * @param session The session opened by the client.
+     * @return The decorated session to send messages through.
+     */
+    public WebSocketSession register(WebSocketSession session) {
+        WebSocketSession decoratedSession = new ConcurrentWebSocketSessionDecorator(
+                session, (int) sendTimeLimit.toMillis(), bufferSizeLimit,
+                ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+
+        sessions.put(session.getId(), decoratedSession);
+        topicsBySession.put(session.getId(), new ConcurrentHashMap<>());
+        sessionsByUser.computeIfAbsent(getUserId(session), u -> ConcurrentHashMap.newKeySet()).add(session.getId());
+        return decoratedSession;
+    }
+
+    /**
+     * Removes a closed session and all its topics.
+     *
+     * @param sessionId Identifier of the session.
+     */
+    public void unregister(String sessionId) {
+        WebSocketSession session = sessions.remove(sessionId);
+        if (session != null) {
+            sessionsByUser.computeIfPresent(getUserId(session), (u, sessionIds) -> {
+                sessionIds.remove(sessionId);
+                return sessionIds.isEmpty() ? null : sessionIds;
+            });
+        }
+
+        Map<Topic, Long> topics = topicsBySession.remove(sessionId);
+        if (topics != null) {
+            topics.keySet().forEach(topic -> unsubscribe(sessionId, topic));
+        }
+    }
+
+    /**
+     * Makes a session follow a topic.
+     *
+     * @param themeId Identifier of the theme whose subscription grants the
+     *                topic.
+     * @return False if the session already follows the maximum number of
+     *         topics.
+     */
+    public boolean subscribe(String sessionId, Topic topic, long themeId) {
+        Map<Topic, Long> topics = topicsBySession.get(sessionId);
+        if (topics == null || (topics.size() >= maxTopicsPerSession && !topics.containsKey(topic))) {
+            return false;
+        }
+
+        topics.put(topic, themeId);
+        sessionsByTopic.compute(topic, (t, sessionIds) -> {
+            Set<String> topicSessionIds = sessionIds == null ? ConcurrentHashMap.newKeySet() : sessionIds;
+            topicSessionIds.add(sessionId);
+            return topicSessionIds;
+        });
+        return true;
+    }
+
+    public void unsubscribe(String sessionId, Topic topic) {
+        Map<Topic, Long> topics = topicsBySession.get(sessionId);
+        if (topics != null) {
+            topics.remove(topic);
+        }
+
+        sessionsByTopic.computeIfPresent(topic, (t, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    /**
+     * Makes the sessions of a user stop following the topics granted by a
+     * theme.
+     *
+     * @param userId  Identifier of the user.
+     * @param themeId Identifier of the theme.
+     */
+    public void unsubscribeTheme(Long userId, long themeId) {
+        for (String sessionId : sessionsByUser.getOrDefault(userId, Set.of())) {
+            Map<Topic, Long> topics = topicsBySession.get(sessionId);
+            if (topics != null) {
+                topics.forEach((topic, grantingThemeId) -> {
+                    if (grantingThemeId == themeId) {
+                        unsubscribe(sessionId, topic);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Returns the open sessions of a user.
+     *
+     * @param userId Identifier of the user.
+     * @return The decorated sessions.
+     */
+    public List<WebSocketSession> getUserSessions(Long userId) {
+        return sessionsByUser.getOrDefault(userId, Set.of()).stream()
+                .map(sessions::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Returns the open sessions following a topic.
+     *
+     * @param topic The topic.
+     * @return The decorated sessions.
+     */
+    public List<WebSocketSession> getSessions(Topic topic) {
+        Set<String> sessionIds = sessionsByTopic.get(topic);
+        if (sessionIds == null) {
+            return List.of();
+        }
+
+        return sessionIds.stream()
+                .map(sessions::get)
+                .filter(Objects::nonNull)
+                .filter(WebSocketSession::isOpen)
+                .toList();
+    }
+
+    public WebSocketSession getSession(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    private static Long getUserId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE);
+    }
+}
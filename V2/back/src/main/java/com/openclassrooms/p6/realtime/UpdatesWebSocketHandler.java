@@ -0,0 +1,168 @@
+package com.openclassrooms.p6.realtime;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.event.SubscriptionChangedEvent;
+import com.openclassrooms.p6.event.UserUpdatedEvent;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.service.ArticleService;
+import com.openclassrooms.p6.service.SubscriptionsService;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Handles the messages of the clients of the push channel: subscribing to and
+ * unsubscribing from topics. The updates themselves are sent by the
+ * {@link UpdatesBroadcaster}.
+ *
+ * <p>
+ * A user may only follow the themes it is subscribed to and the articles of
+ * those themes. This is checked when the topic is subscribed to, and the
+ * topics granted by a theme are dropped when the user unsubscribes from it.
+ * The sessions of a user are closed once its token is no longer accepted,
+ * after a password change or the deletion of the user.
+ */
+@Component
+public class UpdatesWebSocketHandler extends TextWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(UpdatesWebSocketHandler.class);
+
+    private static final CloseStatus TOKEN_REVOKED = CloseStatus.POLICY_VIOLATION.withReason("Token revoked");
+
+    private final UpdatesSessionRegistry sessionRegistry;
+    private final JwtHandshakeInterceptor handshakeInterceptor;
+    private final SubscriptionsService subscriptionsService;
+    private final ArticleService articleService;
+    private final ObjectMapper objectMapper;
+
+    public UpdatesWebSocketHandler(UpdatesSessionRegistry sessionRegistry,
+            JwtHandshakeInterceptor handshakeInterceptor,
+            SubscriptionsService subscriptionsService,
+            ArticleService articleService,
+            ObjectMapper objectMapper) {
+        this.sessionRegistry = sessionRegistry;
+        this.handshakeInterceptor = handshakeInterceptor;
+        this.subscriptionsService = subscriptionsService;
+        this.articleService = articleService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        sessionRegistry.register(session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        Long userId = (Long) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE);
+
+        UpdateMessages.SubscriptionRequest request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), UpdateMessages.SubscriptionRequest.class);
+        } catch (JsonProcessingException e) {
+            reply(session, new UpdateMessages.Error("error", "Malformed message"));
+            return;
+        }
+
+        Optional<Topic> topic = toTopic(request);
+        if (topic.isEmpty() || request.action() == null) {
+            reply(session, new UpdateMessages.Error("error", "Unknown topic"));
+            return;
+        }
+
+        switch (request.action()) {
+            case "subscribe" -> {
+                Optional<Long> themeId = findGrantingThemeId(userId, topic.get());
+                if (themeId.isEmpty()) {
+                    reply(session, new UpdateMessages.Error("error", "You must be subscribed to this theme"));
+                    return;
+                }
+                if (!sessionRegistry.subscribe(session.getId(), topic.get(), themeId.get())) {
+                    reply(session, new UpdateMessages.Error("error", "Too many topics"));
+                    return;
+                }
+            }
+            case "unsubscribe" -> sessionRegistry.unsubscribe(session.getId(), topic.get());
+            default -> {
+                reply(session, new UpdateMessages.Error("error", "Unknown action"));
+                return;
+            }
+        }
+
+        reply(session, new UpdateMessages.SubscriptionAck("ack", request.action(), request.topic(), request.id()));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessionRegistry.unregister(session.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        if (!event.subscribed()) {
+            sessionRegistry.unsubscribeTheme(event.userId(), event.themeId());
+        }
+    }
+
+    /**
+     * Checks the tokens of the sessions of the user again. The authorization
+     * state of the user is evicted by an earlier listener.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        for (WebSocketSession session : sessionRegistry.getUserSessions(event.userId())) {
+            Claims claims = (Claims) session.getAttributes().get(JwtHandshakeInterceptor.CLAIMS_ATTRIBUTE);
+            if (!handshakeInterceptor.isAuthenticated(event.userId(), claims)) {
+                try {
+                    session.close(TOKEN_REVOKED);
+                } catch (IOException e) {
+                    logger.debug("Could not close session {}", session.getId(), e);
+                }
+            }
+        }
+    }
+
+    private Optional<Topic> toTopic(UpdateMessages.SubscriptionRequest request) {
+        if (request.topic() == null || request.id() == null) {
+            return Optional.empty();
+        }
+
+        return switch (request.topic()) {
+            case "theme" -> Optional.of(new Topic(Topic.Kind.THEME, request.id()));
+            case "article" -> Optional.of(new Topic(Topic.Kind.ARTICLE, request.id()));
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * @return The theme of the topic, if the user is subscribed to it.
+     */
+    private Optional<Long> findGrantingThemeId(Long userId, Topic topic) {
+        Optional<Long> themeId = switch (topic.kind()) {
+            case THEME -> Optional.of(topic.id());
+            case ARTICLE -> articleService.getArticleById(topic.id()).map(Articles::getThemeId);
+        };
+        return themeId.filter(id -> subscriptionsService.isUserSubscribedToTheme(userId, id));
+    }
+
+    private void reply(WebSocketSession session, Object message) throws IOException {
+        WebSocketSession decoratedSession = sessionRegistry.getSession(session.getId());
+        if (decoratedSession == null) {
+            logger.debug("Reply to closed session {} dropped", session.getId());
+            return;
+        }
+
+        decoratedSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+}
@@ -1,11 +1,174 @@
 package com.openclassrooms.p6.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+import com.openclassrooms.p6.repository.projection.ArticleVersion;
+import com.openclassrooms.p6.repository.projection.ThemeArticlesVersion;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Articles, Long> {
 
+    /**
+     * Loads an article together with its author and theme in a single statement.
+     */
+    @EntityGraph(attributePaths = { "user", "theme" })
+    Optional<Articles> findWithAuthorAndThemeById(Long id);
+
+    /**
+     * Summaries of the articles published in the themes the user is subscribed to, newest first.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN (
+                SELECT s.themeId FROM Subscriptions s
+                WHERE s.userId = :userId AND s.isSubscribed = true)
+            ORDER BY a.createdAt DESC, a.id DESC
+            """)
+    List<ArticleSummaryView> findAllSubscribedByUserId(@Param("userId") Long userId);
+
+    /**
+     * First page of the subscription feed, ordered by {@code (createdAt, id)}
+     * descending.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN (
+                SELECT s.themeId FROM Subscriptions s
+                WHERE s.userId = :userId AND s.isSubscribed = true)
+            ORDER BY a.createdAt DESC, a.id DESC
+            """)
+    Slice<ArticleSummaryView> findFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Page of the subscription feed strictly after the given keyset position.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN (
+                SELECT s.themeId FROM Subscriptions s
+                WHERE s.userId = :userId AND s.isSubscribed = true)
+              AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id))
+            ORDER BY a.createdAt DESC, a.id DESC
+            """)
+    Slice<ArticleSummaryView> findFeedPageAfter(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * First page of the subscription feed, leaving out the given themes.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN (
+                SELECT s.themeId FROM Subscriptions s
+                WHERE s.userId = :userId AND s.isSubscribed = true)
+              AND a.themeId NOT IN :excludedThemeIds
+            ORDER BY a.createdAt DESC, a.id DESC
+            """)
+    Slice<ArticleSummaryView> findFeedFirstPageExcludingThemes(@Param("userId") Long userId,
+            @Param("excludedThemeIds") Collection<Long> excludedThemeIds,
+            Pageable pageable);
+
+    /**
+     * First page of the articles of the given themes, ordered by
+     * {@code (createdAt, id)} descending.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN :themeIds
+            ORDER BY a.createdAt DESC, a.id DESC
+            """)
+    Slice<ArticleSummaryView> findThemesFeedFirstPage(@Param("themeIds") Collection<Long> themeIds,
+            Pageable pageable);
+
+    /**
+     * Page of the articles of the given themes strictly after the given keyset
+     * position.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN :themeIds
+              AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id))
+            ORDER BY a.createdAt DESC, a.id DESC
+            """)
+    Slice<ArticleSummaryView> findThemesFeedPageAfter(@Param("themeIds") Collection<Long> themeIds,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Identifiers of every article, used to reconcile the search index.
+     */
+    @Query("SELECT a.id FROM Articles a")
+    List<Long> findAllIds();
+
+    /**
+     * Summaries of the given articles, in no particular order.
+     */
+    @Query("""
+            SELECT a.id AS id, a.title AS title, a.description AS description,
+                   a.createdAt AS createdAt, u.username AS username
+            FROM Articles a JOIN a.user u
+            WHERE a.id IN :ids
+            """)
+    List<ArticleSummaryView> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * State of the articles of the given themes, for the themes having at
+     * least one article.
+     */
+    @Query("""
+            SELECT new com.openclassrooms.p6.repository.projection.ThemeArticlesVersion(
+                a.themeId, COUNT(a), MAX(a.updatedAt), MAX(u.updatedAt))
+            FROM Articles a JOIN a.user u
+            WHERE a.themeId IN :themeIds
+            GROUP BY a.themeId
+            """)
+    List<ThemeArticlesVersion> findVersionsByThemeIdIn(@Param("themeIds") Collection<Long> themeIds);
+
+    /**
+     * State of an article with its comments, in a single statement.
+     */
+    @Query("""
+            SELECT new com.openclassrooms.p6.repository.projection.ArticleVersion(
+                a.themeId, a.updatedAt, u.updatedAt, COUNT(c), MAX(c.updatedAt), MAX(cu.updatedAt))
+            FROM Articles a JOIN a.user u
+                LEFT JOIN Comments c ON c.articleId = a.id
+                LEFT JOIN c.user cu
+            WHERE a.id = :id
+            GROUP BY a.themeId, a.updatedAt, u.updatedAt
+            """)
+    Optional<ArticleVersion> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT a.themeId FROM Articles a WHERE a.userId = :userId")
+    List<Long> findThemeIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.id FROM Articles a WHERE a.userId = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
 }
@@ -1,8 +1,15 @@
 package com.openclassrooms.p6.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.p6.model.Comments;
@@ -13,5 +20,44 @@ import com.openclassrooms.p6.model.Comments;
 @Repository
 public interface CommentRepository extends JpaRepository<Comments, Long> {
 
+    @EntityGraph(attributePaths = "user")
     List<Comments> findAllByArticleId(Long articleId);
+
+    /**
+     * First page of the comments of an article, oldest first.
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("""
+            SELECT c FROM Comments c
+            WHERE c.articleId = :articleId
+            ORDER BY c.createdAt ASC, c.id ASC
+            """)
+    Slice<Comments> findFirstPageByArticleId(@Param("articleId") Long articleId, Pageable pageable);
+
+    /**
+     * Page of the comments of an article strictly after the given keyset
+     * position.
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("""
+            SELECT c FROM Comments c
+            WHERE c.articleId = :articleId
+              AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id))
+            ORDER BY c.createdAt ASC, c.id ASC
+            """)
+    Slice<Comments> findPageByArticleIdAfter(@Param("articleId") Long articleId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    long countByArticleId(Long articleId);
+
+    /**
+     * Comments already persisted among those with the given ingest
+     * identifiers.
+     */
+    List<Comments> findAllByIngestIdIn(Collection<String> ingestIds);
+
+    @Query("SELECT DISTINCT c.articleId FROM Comments c WHERE c.userId = :userId")
+    List<Long> findArticleIdsByUserId(@Param("userId") Long userId);
 }
@@ -1,9 +1,47 @@
 package com.openclassrooms.p6.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.openclassrooms.p6.model.Subscriptions;
+import com.openclassrooms.p6.repository.projection.ThemeSubscriberCount;
 
 public interface SubscriptionRepository extends JpaRepository<Subscriptions, Long> {
     Iterable<Subscriptions> findAllByUserId(Long userId);
+
+    boolean existsByUserIdAndThemeId(Long userId, Long themeId);
+
+    @Query("SELECT s.themeId FROM Subscriptions s WHERE s.userId = :userId AND s.isSubscribed = true")
+    List<Long> findSubscribedThemeIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT s.userId FROM Subscriptions s WHERE s.themeId = :themeId AND s.isSubscribed = true")
+    List<Long> findSubscribedUserIdsByThemeId(@Param("themeId") Long themeId);
+
+    @Query("""
+            SELECT new com.openclassrooms.p6.repository.projection.ThemeSubscriberCount(s.themeId, COUNT(s))
+            FROM Subscriptions s WHERE s.isSubscribed = true GROUP BY s.themeId
+            """)
+    List<ThemeSubscriberCount> countSubscribersByTheme();
+
+    /**
+     * Switches the state of an existing subscription in a single statement.
+     *
+     * @return 1 if the subscription existed in the other state, 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Subscriptions s
+            SET s.isSubscribed = :isSubscribed, s.updatedAt = CURRENT_TIMESTAMP
+            WHERE s.userId = :userId AND s.themeId = :themeId
+              AND (s.isSubscribed IS NULL OR s.isSubscribed <> :isSubscribed)
+            """)
+    int updateSubscriptionState(@Param("userId") Long userId,
+            @Param("themeId") Long themeId,
+            @Param("isSubscribed") boolean isSubscribed);
 }
@@ -1,9 +1,25 @@
 package com.openclassrooms.p6.repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.openclassrooms.p6.model.Themes;
 
 public interface ThemeRepository extends JpaRepository<Themes, Long> {
 
+    Optional<Themes> findByNormalizedTitle(String normalizedTitle);
+
+    /**
+     * Fills the normalized title of themes created before the column existed.
+     *
+     * @return The number of updated themes.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Themes t SET t.normalizedTitle = LOWER(TRIM(t.title)) WHERE t.normalizedTitle IS NULL")
+    int backfillNormalizedTitles();
 }
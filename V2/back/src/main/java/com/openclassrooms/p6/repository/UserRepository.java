@@ -1,11 +1,15 @@
 package com.openclassrooms.p6.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.p6.model.Users;
+import com.openclassrooms.p6.repository.projection.UserAuthState;
 
 /**
  * Repository interface for managing Users entities in the database.
@@ -15,4 +19,19 @@ public interface UserRepository extends JpaRepository<Users, Long> {
     Optional<Users> findByEmail(String email);
 
     Optional<Users> findByUsername(String username);
+
+    /**
+     * Resolves a login identifier against both the email and the username
+     * columns in a single statement.
+     */
+    @Query("SELECT u FROM Users u WHERE u.email = :identifier OR u.username = :identifier")
+    List<Users> findAllByEmailOrUsername(@Param("identifier") String identifier);
+
+    boolean existsByEmail(String email);
+
+    boolean existsByUsername(String username);
+
+    @Query("SELECT new com.openclassrooms.p6.repository.projection.UserAuthState(u.id, u.passwordChangedAt) "
+            + "FROM Users u WHERE u.id = :id")
+    Optional<UserAuthState> findAuthStateById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.openclassrooms.p6.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an article holding only the columns needed by
+ * {@link com.openclassrooms.p6.payload.response.ArticleSummaryResponse}.
+ *
+ * <p>
+ * Queries returning this projection select the summary columns and the author
+ * username in a single statement, without materializing the {@code content}
+ * column or the associated entities.
+ */
+public interface ArticleSummaryView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    LocalDateTime getCreatedAt();
+
+    String getUsername();
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.p6.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of an article, as shown in its detail: the last update of the article
+ * and of its author, and the number and last update of its comments and of
+ * their authors.
+ *
+ * @param themeId                Identifier of the theme of the article, or
+ *                               null if the article does not exist.
+ * @param updatedAt              Last update of the article.
+ * @param authorUpdatedAt        Last update of the author.
+ * @param comments               Number of comments.
+ * @param lastCommentUpdatedAt   Last update of a comment, or null if there is
+ *                               none.
+ * @param lastCommenterUpdatedAt Last update of the author of a comment, or
+ *                               null if there is none.
+ */
+public record ArticleVersion(
+        Long themeId,
+        LocalDateTime updatedAt,
+        LocalDateTime authorUpdatedAt,
+        Long comments,
+        LocalDateTime lastCommentUpdatedAt,
+        LocalDateTime lastCommenterUpdatedAt) {
+
+    /**
+     * Version of an article that does not exist.
+     */
+    public static final ArticleVersion NONE = new ArticleVersion(null, null, null, 0L, null, null);
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.p6.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of the articles of a theme, as shown in the article lists: their
+ * number and the last update of the articles and of their authors.
+ *
+ * @param themeId             Identifier of the theme.
+ * @param articles            Number of articles of the theme.
+ * @param lastUpdatedAt       Last update of an article, or null if the theme
+ *                            has no article.
+ * @param lastAuthorUpdatedAt Last update of an author, or null if the theme
+ *                            has no article.
+ */
+public record ThemeArticlesVersion(
+        Long themeId,
+        Long articles,
+        LocalDateTime lastUpdatedAt,
+        LocalDateTime lastAuthorUpdatedAt) {
+
+    public static ThemeArticlesVersion empty(Long themeId) {
+        return new ThemeArticlesVersion(themeId, 0L, null, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.openclassrooms.p6.repository.projection;
+
+/**
+ * Number of users currently subscribed to a theme.
+ *
+ * @param themeId     Identifier of the theme.
+ * @param subscribers Number of active subscriptions to the theme.
+ */
+public record ThemeSubscriberCount(Long themeId, Long subscribers) {
+}
@@ -0,0 +1,37 @@
+package com.openclassrooms.p6.repository.projection;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Minimal state of a user needed to accept or reject an authenticated request:
+ * its identifier and the date of its last password change.
+ *
+ * @param id                Identifier of the user.
+ * @param passwordChangedAt Date of the last password change, or null if the
+ *                          password was never changed.
+ */
+public record UserAuthState(Long id, LocalDateTime passwordChangedAt) {
+
+    /**
+     * Checks whether a token issued at the given date was revoked by a later
+     * password change. The comparison is made at the second precision of the
+     * JWT {@code iat} claim.
+     *
+     * @param issuedAt Issue date of the token, or null if unknown.
+     * @return True if the token must be rejected.
+     */
+    public boolean isTokenRevoked(Date issuedAt) {
+        if (passwordChangedAt == null) {
+            return false;
+        }
+        if (issuedAt == null) {
+            return true;
+        }
+
+        return issuedAt.toInstant().isBefore(
+                passwordChangedAt.atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS));
+    }
+}
@@ -0,0 +1,63 @@
+package com.openclassrooms.p6.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing a term, with the frequency of the term in each of them.
+ *
+ * <p>
+ * Identifiers are kept sorted in a primitive array so that appending newer
+ * articles is cheap and the list can be delta-encoded on disk.
+ */
+final class PostingList {
+
+    private long[] documentIds = new long[4];
+    private int[] frequencies = new int[4];
+    private int size;
+
+    void add(long documentId, int frequency) {
+        int index = size == 0 || documentIds[size - 1] < documentId
+                ? -size - 1
+                : Arrays.binarySearch(documentIds, 0, size, documentId);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+
+        if (size == documentIds.length) {
+            documentIds = Arrays.copyOf(documentIds, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+
+        int insertionPoint = -index - 1;
+        System.arraycopy(documentIds, insertionPoint, documentIds, insertionPoint + 1, size - insertionPoint);
+        System.arraycopy(frequencies, insertionPoint, frequencies, insertionPoint + 1, size - insertionPoint);
+        documentIds[insertionPoint] = documentId;
+        frequencies[insertionPoint] = frequency;
+        size++;
+    }
+
+    boolean remove(long documentId) {
+        int index = Arrays.binarySearch(documentIds, 0, size, documentId);
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(documentIds, index + 1, documentIds, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long documentIdAt(int index) {
+        return documentIds[index];
+    }
+
+    int frequencyAt(int index) {
+        return frequencies[index];
+    }
+}
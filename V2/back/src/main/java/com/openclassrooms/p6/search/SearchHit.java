@@ -0,0 +1,7 @@
+package com.openclassrooms.p6.search;
+
+/**
+ * An article matching a search, with its BM25 score.
+ */
+public record SearchHit(long articleId, double score) {
+}
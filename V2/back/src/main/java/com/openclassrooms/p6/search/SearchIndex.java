@@ -0,0 +1,350 @@
+package com.openclassrooms.p6.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory inverted index over the text of the articles, ranked with BM25.
+ *
+ * <p>
+ * Each term maps to a {@link PostingList} of the articles containing it. Title
+ * terms count twice, so that an article whose title matches ranks above one
+ * that only mentions the term in its content. The index can be written to and
+ * read from a single segment file, so a restart does not have to re-read every
+ * article from the database.
+ *
+ * <p>
+ * Reads and writes are guarded by a read-write lock: searches run concurrently
+ * and only block while an article is being added or removed.
+ */
+public final class SearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final int SEGMENT_MAGIC = 0x4D444453;
+    private static final int SEGMENT_VERSION = 1;
+
+    private static final Comparator<SearchHit> BY_RELEVANCE = Comparator
+            .comparingDouble(SearchHit::score).reversed()
+            .thenComparing(Comparator.comparingLong(SearchHit::articleId).reversed());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, PostingList> postings = new HashMap<>();
+    private Map<Long, IndexedDocument> documents = new HashMap<>();
+    private long totalLength;
+
+    private record IndexedDocument(long themeId, int length, String[] terms) {
+    }
+
+    /**
+     * Indexes an article, replacing any previous version of it.
+     *
+     * @param articleId   Identifier of the article.
+     * @param themeId     Identifier of the theme of the article.
+     * @param title       Title of the article.
+     * @param description Description of the article.
+     * @param content     Content of the article.
+     */
+    public void add(long articleId, long themeId, String title, String description, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> titleTerms = Tokenizer.tokenize(title);
+        titleTerms.forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+        List<String> bodyTerms = Tokenizer.tokenize(description);
+        bodyTerms.addAll(Tokenizer.tokenize(content));
+        bodyTerms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int length = titleTerms.size() * TITLE_WEIGHT + bodyTerms.size();
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(articleId);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new PostingList()).add(articleId, frequency));
+            documents.put(articleId, new IndexedDocument(themeId, length, frequencies.keySet().toArray(String[]::new)));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an article from the index.
+     *
+     * @param articleId Identifier of the article.
+     * @return True if the article was indexed.
+     */
+    public boolean remove(long articleId) {
+        lock.writeLock().lock();
+        try {
+            return removeDocument(articleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long articleId) {
+        lock.readLock().lock();
+        try {
+            return documents.containsKey(articleId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the identifiers of the indexed articles.
+     *
+     * @return The indexed article identifiers.
+     */
+    public Set<Long> documentIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(documents.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the articles best matching the query, most relevant first. Ties
+     * are broken in favour of the most recent article.
+     *
+     * @param query       The text searched for.
+     * @param themeFilter Accepts the themes whose articles may be returned.
+     * @param limit       Maximum number of hits.
+     * @return The matching articles with their score.
+     */
+    public List<SearchHit> search(String query, LongPredicate themeFilter, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            for (String term : queryTerms) {
+                PostingList postingList = postings.get(term);
+                if (postingList == null) {
+                    continue;
+                }
+
+                int documentFrequency = postingList.size();
+                double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (int i = 0; i < documentFrequency; i++) {
+                    long documentId = postingList.documentIdAt(i);
+                    IndexedDocument document = documents.get(documentId);
+                    if (!themeFilter.test(document.themeId())) {
+                        continue;
+                    }
+
+                    int frequency = postingList.frequencyAt(i);
+                    double norm = K1 * (1 - B + B * document.length() / averageLength);
+                    scores.merge(documentId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Tas borné : la tête est le moins pertinent des résultats retenus
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(BY_RELEVANCE.reversed());
+        scores.forEach((articleId, score) -> {
+            best.add(new SearchHit(articleId, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+
+        List<SearchHit> hits = new ArrayList<>(best);
+        hits.sort(BY_RELEVANCE);
+        return hits;
+    }
+
+    /**
+     * Writes the index to a segment file. The file is replaced atomically, so
+     * a crash while writing leaves the previous segment intact.
+     *
+     * @param path The segment file.
+     * @throws IOException If the segment could not be written.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try {
+            lock.readLock().lock();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(SEGMENT_MAGIC);
+                out.writeInt(SEGMENT_VERSION);
+
+                writeVarLong(out, documents.size());
+                long previousId = 0;
+                for (Map.Entry<Long, IndexedDocument> entry : new TreeMap<>(documents).entrySet()) {
+                    writeVarLong(out, entry.getKey() - previousId);
+                    writeVarLong(out, entry.getValue().themeId());
+                    writeVarLong(out, entry.getValue().length());
+                    previousId = entry.getKey();
+                }
+
+                writeVarLong(out, postings.size());
+                for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                    PostingList postingList = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    writeVarLong(out, postingList.size());
+                    previousId = 0;
+                    for (int i = 0; i < postingList.size(); i++) {
+                        writeVarLong(out, postingList.documentIdAt(i) - previousId);
+                        writeVarLong(out, postingList.frequencyAt(i));
+                        previousId = postingList.documentIdAt(i);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Replaces the content of the index with the given segment file.
+     *
+     * @param path The segment file.
+     * @throws IOException If the segment could not be read or is not a valid
+     *                     segment, in which case the index is left unchanged.
+     */
+    public void loadFrom(Path path) throws IOException {
+        Map<String, PostingList> loadedPostings = new HashMap<>();
+        Map<Long, IndexedDocument> loadedDocuments = new HashMap<>();
+        Map<Long, List<String>> documentTerms = new HashMap<>();
+        Map<Long, long[]> documentHeaders = new HashMap<>();
+        long loadedTotalLength = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION) {
+                throw new IOException("Unsupported search segment: " + path);
+            }
+
+            long documentCount = readVarLong(in);
+            long documentId = 0;
+            for (long i = 0; i < documentCount; i++) {
+                documentId += readVarLong(in);
+                long themeId = readVarLong(in);
+                long length = readVarLong(in);
+                documentHeaders.put(documentId, new long[] { themeId, length });
+                documentTerms.put(documentId, new ArrayList<>());
+                loadedTotalLength += length;
+            }
+
+            long termCount = readVarLong(in);
+            for (long i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                long postingCount = readVarLong(in);
+                PostingList postingList = new PostingList();
+                documentId = 0;
+                for (long j = 0; j < postingCount; j++) {
+                    documentId += readVarLong(in);
+                    postingList.add(documentId, (int) readVarLong(in));
+                    List<String> terms = documentTerms.get(documentId);
+                    if (terms == null) {
+                        throw new IOException("Corrupted search segment: " + path);
+                    }
+                    terms.add(term);
+                }
+                loadedPostings.put(term, postingList);
+            }
+        }
+
+        documentHeaders.forEach((id, header) -> loadedDocuments.put(id,
+                new IndexedDocument(header[0], (int) header[1], documentTerms.get(id).toArray(String[]::new))));
+
+        lock.writeLock().lock();
+        try {
+            postings = loadedPostings;
+            documents = loadedDocuments;
+            totalLength = loadedTotalLength;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeDocument(long articleId) {
+        IndexedDocument document = documents.remove(articleId);
+        if (document == null) {
+            return false;
+        }
+
+        for (String term : document.terms()) {
+            PostingList postingList = postings.get(term);
+            postingList.remove(articleId);
+            if (postingList.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length();
+        return true;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.p6.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into the terms stored in the {@link SearchIndex}.
+ *
+ * <p>
+ * Terms are lower-cased and stripped of their diacritics, so that
+ * {@code "Écrire"} and {@code "ecrire"} match. Very short terms and the most
+ * common French and English words are dropped.
+ */
+public final class Tokenizer {
+
+    static final int MAX_TERM_LENGTH = 64;
+
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "au", "aux", "ce", "ces", "dans", "de", "des", "du", "en", "est", "et", "il", "la", "le",
+            "les", "leur", "mais", "ne", "ou", "par", "pas", "pour", "qu", "que", "qui", "sa", "se",
+            "ses", "son", "sur", "un", "une", "an", "and", "are", "as", "at", "be", "by", "for",
+            "in", "is", "it", "of", "on", "or", "the", "to", "with");
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Returns the terms of the given text, in order and with repetitions.
+     *
+     * @param text The text to tokenize, may be null.
+     * @return The terms of the text.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String term : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (term.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+                terms.add(term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term);
+            }
+        }
+        return terms;
+    }
+}
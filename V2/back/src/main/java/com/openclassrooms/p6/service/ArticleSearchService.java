@@ -0,0 +1,218 @@
+package com.openclassrooms.p6.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.ArticleDeletedEvent;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+import com.openclassrooms.p6.search.SearchHit;
+import com.openclassrooms.p6.search.SearchIndex;
+import com.openclassrooms.p6.utils.SortedLongSet;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Full-text search over the title, description and content of the articles.
+ *
+ * <p>
+ * Searches are answered by an in-memory {@link SearchIndex} instead of a
+ * {@code LIKE} scan of the text columns. On startup the index is loaded from
+ * its segment file ({@code search.index.path}) when there is one, then
+ * reconciled with the articles table so only the articles published or deleted
+ * since the segment was written are read. It is then kept up to date from the
+ * article events and written back on shutdown. Leaving the path empty keeps
+ * the index in memory only.
+ *
+ * <p>
+ * The events received before the index is built are queued and applied once
+ * it is: applied during the rebuild, a deletion could be undone by a batch
+ * read just before it, and a publication dropped by the reconciliation.
+ */
+@Service
+public class ArticleSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(ArticleSearchService.class);
+
+    private static final int REINDEX_BATCH_SIZE = 500;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private SubscriptionsService subscriptionsService;
+
+    @Value("${search.index.path:}")
+    private String indexPath;
+
+    private final SearchIndex index = new SearchIndex();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * Changes received while the index is being built, or null once it is.
+     * Guarded by {@link #changeLock}, like the application of every change.
+     */
+    private List<Predicate<SearchIndex>> pendingChanges = new ArrayList<>();
+
+    private final Object changeLock = new Object();
+
+    /**
+     * Searches the articles of the themes the user is subscribed to.
+     *
+     * @param userId Identifier of the user.
+     * @param query  The text searched for.
+     * @param size   Maximum number of results.
+     * @return Summaries of the matching articles, most relevant first.
+     */
+    public List<ArticleSummaryView> search(Long userId, String query, int size) {
+        SortedLongSet subscribedThemeIds = subscriptionsService.getSubscribedThemeIds(userId);
+        if (subscribedThemeIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<SearchHit> hits = index.search(query, subscribedThemeIds::contains, size);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ArticleSummaryView> summaries = articleRepository
+                .findSummariesByIdIn(hits.stream().map(SearchHit::articleId).toList()).stream()
+                .collect(Collectors.toMap(ArticleSummaryView::getId, Function.identity()));
+
+        return hits.stream()
+                .map(hit -> summaries.get(hit.articleId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Loads the persisted segment, if any, and brings it up to date with the
+     * articles table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        try {
+            rebuildIndex();
+        } finally {
+            applyPendingChanges();
+        }
+        persistIndex();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePublished(ArticlePublishedEvent event) {
+        apply(searchIndex -> {
+            searchIndex.add(event.articleId(), event.themeId(), event.title(), event.description(), event.content());
+            return true;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleDeleted(ArticleDeletedEvent event) {
+        apply(searchIndex -> searchIndex.remove(event.articleId()));
+    }
+
+    /**
+     * Writes the index to its segment file if it changed since it was last
+     * written.
+     */
+    @PreDestroy
+    public void persistIndex() {
+        Path segment = getSegmentPath();
+        if (segment == null || !dirty.getAndSet(false)) {
+            return;
+        }
+
+        try {
+            index.writeTo(segment);
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.warn("Could not write search segment {}", segment, e);
+        }
+    }
+
+    private void rebuildIndex() {
+        Path segment = getSegmentPath();
+        if (segment != null && Files.exists(segment)) {
+            try {
+                index.loadFrom(segment);
+            } catch (IOException e) {
+                logger.warn("Could not load search segment {}, rebuilding the index", segment, e);
+            }
+        }
+
+        // L'index n'est ensuite tenu à jour que par les événements
+        List<Long> articleIds = DataSourceRouting.readFromPrimary(articleRepository::findAllIds);
+        Set<Long> liveIds = new HashSet<>(articleIds);
+        List<Long> deletedIds = index.documentIds().stream().filter(id -> !liveIds.contains(id)).toList();
+        deletedIds.forEach(index::remove);
+
+        List<Long> missingIds = articleIds.stream().filter(id -> !index.contains(id)).toList();
+        for (int from = 0; from < missingIds.size(); from += REINDEX_BATCH_SIZE) {
+            List<Long> batch = missingIds.subList(from, Math.min(from + REINDEX_BATCH_SIZE, missingIds.size()));
+            DataSourceRouting.readFromPrimary(() -> articleRepository.findAllById(batch)).forEach(this::indexArticle);
+        }
+
+        logger.info("Search index ready with {} articles ({} indexed from the database)",
+                index.size(), missingIds.size());
+        dirty.set(!missingIds.isEmpty() || !deletedIds.isEmpty());
+    }
+
+    /**
+     * Applies a change to the index, or queues it while the index is built.
+     *
+     * @param change Change of the index, returning whether it modified it.
+     */
+    private void apply(Predicate<SearchIndex> change) {
+        synchronized (changeLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            } else if (change.test(index)) {
+                dirty.set(true);
+            }
+        }
+    }
+
+    private void applyPendingChanges() {
+        synchronized (changeLock) {
+            for (Predicate<SearchIndex> change : pendingChanges) {
+                if (change.test(index)) {
+                    dirty.set(true);
+                }
+            }
+            pendingChanges = null;
+        }
+    }
+
+    private void indexArticle(Articles article) {
+        index.add(article.getId(), article.getThemeId(),
+                article.getTitle(), article.getDescription(), article.getContent());
+    }
+
+    private Path getSegmentPath() {
+        return indexPath == null || indexPath.isBlank() ? null : Path.of(indexPath);
+    }
+}
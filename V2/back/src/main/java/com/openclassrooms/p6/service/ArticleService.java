@@ -4,32 +4,66 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.p6.event.ArticleDeletedEvent;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
 import com.openclassrooms.p6.model.Articles;
 import com.openclassrooms.p6.payload.request.ArticleRequest;
 import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+import com.openclassrooms.p6.utils.PageCursor;
 
 import lombok.Data;
 
 @Data
 @Service
+@Transactional(readOnly = true)
 public class ArticleService {
 
     @Autowired
     private ArticleRepository articleRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
 
     public List<Articles> getArticles() {
         return articleRepository.findAll();
     }
 
 
+    public List<ArticleSummaryView> getSubscribedArticles(final Long userId) {
+        return articleRepository.findAllSubscribedByUserId(userId);
+    }
+
+
+    public Slice<ArticleSummaryView> getFeedPage(final Long userId, final PageCursor cursor, final int size) {
+        PageRequest pageRequest = PageRequest.ofSize(size);
+
+        if (cursor == null) {
+            return articleRepository.findFeedFirstPage(userId, pageRequest);
+        }
+
+        return articleRepository.findFeedPageAfter(userId, cursor.createdAt(), cursor.id(), pageRequest);
+    }
+
+
     public Optional<Articles> getArticleById(final Long id) {
         return articleRepository.findById(id);
     }
 
 
+    public Optional<Articles> getArticleWithAuthorAndThemeById(final Long id) {
+        return articleRepository.findWithAuthorAndThemeById(id);
+    }
+
+
+    @Transactional
     public Articles createArticle(ArticleRequest articleCreationRequest, Long userId, Long themeId) {
         Articles article = new Articles();
 
@@ -39,13 +73,22 @@ public class ArticleService {
         article.setDescription(articleCreationRequest.description());
         article.setContent(articleCreationRequest.content());
 
+        Articles savedArticle = articleRepository.save(article);
+        eventPublisher.publishEvent(new ArticlePublishedEvent(
+                savedArticle.getId(), savedArticle.getThemeId(), savedArticle.getUserId(),
+                savedArticle.getCreatedAt(), savedArticle.getTitle(),
+                savedArticle.getDescription(), savedArticle.getContent()));
 
-        return articleRepository.save(article);
+        return savedArticle;
     }
 
 
+    @Transactional
     public void deleteArticleById(final Long id) {
-        articleRepository.deleteById(id);
+        articleRepository.findById(id).ifPresent(article -> {
+            articleRepository.delete(article);
+            eventPublisher.publishEvent(new ArticleDeletedEvent(id, article.getThemeId()));
+        });
     }
 
 }
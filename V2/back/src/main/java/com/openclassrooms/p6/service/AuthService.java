@@ -1,27 +1,41 @@
 package com.openclassrooms.p6.service;
 
 import com.openclassrooms.p6.exception.ApiException;
-import com.openclassrooms.p6.model.Users;
-import com.openclassrooms.p6.utils.JwtUtil;
+import com.openclassrooms.p6.repository.projection.UserAuthState;
+
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class AuthService {
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
     @Autowired
     private UserService userService;
 
-    public Long verifyUserValidityFromToken(String authorizationHeader) {
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+    /**
+     * Resolves the identifier of the user of an authentication built from a
+     * verified token, by {@link com.openclassrooms.p6.configuration.JwtAuthenticationFilter}
+     * for every request or by the WebSocket handshake.
+     *
+     * <p>
+     * The signature of the token was already verified, so only the existence of
+     * the user and the revocation of the token by a later password change are
+     * checked, against the cached {@link UserAuthState}. The filter does not
+     * authenticate a request failing these checks, so the controllers read the
+     * user from the principal.
+     *
+     * @param authentication The authentication of the current request.
+     * @return The identifier of the authenticated user.
+     * @throws ApiException If the user no longer exists or the token was revoked.
+     */
+    public Long getAuthenticatedUserId(Authentication authentication) {
+        if (authentication == null || !(authentication.getCredentials() instanceof Claims claims)) {
             throw new ApiException(
                     "Authorization header is missing or malformed",
                     List.of("Missing or malformed token"),
@@ -30,33 +44,24 @@ public class AuthService {
             );
         }
 
-        String jwtToken = JwtUtil.extractJwtFromHeader(authorizationHeader);
+        Long userId = Long.parseLong((String) authentication.getPrincipal());
+
+        UserAuthState userAuthState = userService.getUserAuthState(userId).orElseThrow(() -> new ApiException(
+                "User not found",
+                List.of("No user found with this ID"),
+                HttpStatus.UNAUTHORIZED,
+                LocalDateTime.now()
+        ));
 
-        if (!jwtUtil.isTokenValid(jwtToken)) {
+        if (userAuthState.isTokenRevoked(claims.getIssuedAt())) {
             throw new ApiException(
                     "Invalid JWT token",
-                    List.of("Token signature or format is invalid"),
+                    List.of("Token was issued before the last password change"),
                     HttpStatus.UNAUTHORIZED,
                     LocalDateTime.now()
             );
         }
 
-        Long userId = jwtUtil.extractUserId(jwtToken).orElseThrow(() -> new ApiException(
-                "Invalid JWT token",
-                List.of("Could not extract user ID from token"),
-                HttpStatus.UNAUTHORIZED,
-                LocalDateTime.now()
-        ));
-
-        Optional<Users> optionalUser = userService.getUserById(userId);
-        System.out.println("Token utilisé : " + jwtToken);
-        System.out.println("Subject : " + jwtUtil.extractUserId(jwtToken));
-
-        return optionalUser.map(Users::getId).orElseThrow(() -> new ApiException(
-                "User not found",
-                List.of("No user found with this ID"),
-                HttpStatus.UNAUTHORIZED,
-                LocalDateTime.now()
-        ));
+        return userId;
     }
 }
@@ -0,0 +1,247 @@
+package com.openclassrooms.p6.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.CommentPostedEvent;
+import com.openclassrooms.p6.ingest.CommentLog;
+import com.openclassrooms.p6.ingest.PendingComment;
+import com.openclassrooms.p6.model.Comments;
+import com.openclassrooms.p6.repository.CommentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind ingestion of the comments, enabled with
+ * {@code comments.write-behind.enabled}.
+ *
+ * <p>
+ * A submitted comment is appended to a {@link CommentLog} and forced to disk
+ * before being acknowledged, then persisted with the following ones by a
+ * scheduled flush, in JDBC batches of {@code comments.write-behind.batch-size}
+ * inserts. The {@link CommentPostedEvent} of a comment is published once it is
+ * persisted. The log is emptied whenever every comment it holds has been
+ * persisted, and replayed on startup.
+ *
+ * <p>
+ * The comments replayed from the log, or put back after a failed flush, may
+ * have been persisted already: those whose ingest identifier is in the
+ * database are not inserted again, but their event is published, as it may
+ * never have been.
+ */
+@Service
+@ConditionalOnProperty(name = "comments.write-behind.enabled", havingValue = "true")
+public class CommentWriteBehindService {
+    private static final Logger logger = LoggerFactory.getLogger(CommentWriteBehindService.class);
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${comments.write-behind.log-path:data/comments.wal}")
+    private Path logPath;
+
+    @Value("${comments.write-behind.batch-size:50}")
+    private int batchSize;
+
+    @Value("${comments.write-behind.max-pending:10000}")
+    private int maxPending;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Deque<PendingComment> pending = new ArrayDeque<>();
+
+    /**
+     * Comments held by the log and not yet persisted, pending or being flushed.
+     */
+    private int unflushed;
+
+    private CommentLog log;
+
+    @PostConstruct
+    public void openLog() throws IOException {
+        log = CommentLog.open(logPath);
+        List<PendingComment> recovered = log.recover();
+        pending.addAll(recovered);
+        unflushed = recovered.size();
+
+        if (!recovered.isEmpty()) {
+            logger.info("Replaying {} comments from the write-ahead log", recovered.size());
+        }
+    }
+
+    /**
+     * Accepts a comment, to be persisted by the next flush.
+     *
+     * @param userId    Identifier of the author.
+     * @param articleId Identifier of the commented article.
+     * @param comment   Text of the comment.
+     * @return true if the comment is on disk, false if too many comments are
+     *         already pending.
+     */
+    public boolean submit(Long userId, Long articleId, String comment) {
+        PendingComment pendingComment = new PendingComment(UUID.randomUUID(), userId, articleId, comment, false);
+        long position;
+
+        lock.lock();
+        try {
+            if (unflushed >= maxPending) {
+                return false;
+            }
+            position = log.append(pendingComment);
+            pending.addLast(pendingComment);
+            unflushed++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            log.sync(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Persists the pending comments, batch by batch. A batch failing for
+     * another reason than its content is put back and retried on the next run,
+     * marked as possibly persisted since the failure may follow the commit.
+     */
+    @Scheduled(fixedDelayString = "${comments.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<PendingComment> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                List<Comments> savedComments;
+                try {
+                    savedComments = save(batch);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not persist {} pending comments, retrying later", batch.size(), e);
+                    putBack(batch);
+                    return;
+                }
+
+                markFlushed(batch.size());
+                savedComments.forEach(saved -> eventPublisher.publishEvent(
+                        new CommentPostedEvent(saved.getId(), saved.getArticleId(), saved.getUserId())));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void closeLog() throws IOException {
+        flush();
+        log.close();
+    }
+
+    /**
+     * @return The comments of the batch now in the database, including those
+     *         that already were.
+     */
+    private List<Comments> save(List<PendingComment> batch) {
+        List<PendingComment> newComments = batch;
+        List<Comments> existingComments = List.of();
+        if (batch.stream().anyMatch(PendingComment::recovered)) {
+            existingComments = DataSourceRouting.readFromPrimary(() -> commentRepository.findAllByIngestIdIn(
+                    batch.stream().filter(PendingComment::recovered)
+                            .map(comment -> comment.ingestId().toString()).toList()));
+            Set<String> existingIngestIds = new HashSet<>();
+            existingComments.forEach(existing -> existingIngestIds.add(existing.getIngestId()));
+            newComments = batch.stream()
+                    .filter(comment -> !existingIngestIds.contains(comment.ingestId().toString()))
+                    .toList();
+        }
+
+        List<Comments> savedComments = new ArrayList<>(existingComments);
+        try {
+            savedComments.addAll(commentRepository.saveAll(newComments.stream().map(PendingComment::toEntity).toList()));
+        } catch (DataIntegrityViolationException e) {
+            // Un seul commentaire invalide (article supprimé entre-temps) fait échouer tout le lot
+            savedComments.addAll(saveOneByOne(newComments));
+        }
+        return savedComments;
+    }
+
+    private List<Comments> saveOneByOne(List<PendingComment> comments) {
+        List<Comments> savedComments = new ArrayList<>();
+        for (PendingComment comment : comments) {
+            try {
+                savedComments.add(commentRepository.save(comment.toEntity()));
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Dropping comment {} of user {} on article {}: {}",
+                        comment.ingestId(), comment.userId(), comment.articleId(), e.getMostSpecificCause().getMessage());
+            }
+        }
+        return savedComments;
+    }
+
+    private List<PendingComment> nextBatch() {
+        lock.lock();
+        try {
+            List<PendingComment> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            while (batch.size() < batchSize && !pending.isEmpty()) {
+                batch.add(pending.pollFirst());
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putBack(List<PendingComment> batch) {
+        lock.lock();
+        try {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pending.addFirst(batch.get(i).asRecovered());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markFlushed(int count) {
+        lock.lock();
+        try {
+            unflushed -= count;
+            if (unflushed == 0) {
+                log.reset();
+            }
+        } catch (IOException e) {
+            // Le journal sera rejoué au prochain démarrage, sans doublon
+            logger.warn("Could not empty the comments write-ahead log", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.openclassrooms.p6.service;
 
 import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.p6.event.CommentPostedEvent;
 import com.openclassrooms.p6.model.Comments;
 import com.openclassrooms.p6.payload.request.CommentRequest;
 import com.openclassrooms.p6.repository.CommentRepository;
+import com.openclassrooms.p6.utils.PageCursor;
 
 import lombok.Data;
 
@@ -15,6 +22,7 @@ import lombok.Data;
  */
 @Data
 @Service
+@Transactional(readOnly = true)
 public class CommentsService {
 
     /**
@@ -24,6 +32,12 @@ public class CommentsService {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectProvider<CommentWriteBehindService> commentWriteBehindService;
+
     /**
      * Retrieve all comments.
      *
@@ -43,6 +57,56 @@ public class CommentsService {
         return commentRepository.findAllByArticleId(id);
     }
 
+    /**
+     * Retrieves one page of the comments related to an article, oldest first.
+     *
+     * @param articleId The identifier of the article.
+     * @param cursor    Position of the last comment of the previous page, or
+     *                  null for the first page.
+     * @param size      Maximum number of comments in the page.
+     * @return The requested page of comments.
+     */
+    public Slice<Comments> getCommentsPageByArticleId(final Long articleId, final PageCursor cursor, final int size) {
+        PageRequest pageRequest = PageRequest.ofSize(size);
+
+        if (cursor == null) {
+            return commentRepository.findFirstPageByArticleId(articleId, pageRequest);
+        }
+
+        return commentRepository.findPageByArticleIdAfter(articleId, cursor.createdAt(), cursor.id(), pageRequest);
+    }
+
+    /**
+     * Counts the comments related to an article.
+     *
+     * @param articleId The identifier of the article.
+     * @return The number of comments of the article.
+     */
+    public long countCommentsByArticleId(final Long articleId) {
+        return commentRepository.countByArticleId(articleId);
+    }
+
+    /**
+     * Submits a comment for an article, through the write-behind log when it
+     * is enabled and not full.
+     *
+     * @param commentRequest The comment to be created.
+     * @param userId         User ID of the creator of the comment.
+     * @param articleId      The identifier of the commented article.
+     * @return true if the comment was accepted and will be persisted shortly,
+     *         false if it has been persisted already.
+     */
+    @Transactional
+    public boolean submitComment(CommentRequest commentRequest, Long userId, Long articleId) {
+        CommentWriteBehindService writeBehind = commentWriteBehindService.getIfAvailable();
+        if (writeBehind != null && writeBehind.submit(userId, articleId, commentRequest.comment())) {
+            return true;
+        }
+
+        createComment(commentRequest, userId, articleId);
+        return false;
+    }
+
     /**
      * Creates a comment for an article.
      *
@@ -50,6 +114,7 @@ public class CommentsService {
      * @param comments The comments to be created for an article.
      * @return The saved or updated comments.
      */
+    @Transactional
     public Comments createComment(CommentRequest commentRequest, Long userId, Long articleId) {
         Comments newComments = new Comments();
 
@@ -57,6 +122,8 @@ public class CommentsService {
         newComments.setUserId(userId);
         newComments.setComment(commentRequest.comment());
 
-        return commentRepository.save(newComments);
+        Comments savedComment = commentRepository.save(newComments);
+        eventPublisher.publishEvent(new CommentPostedEvent(savedComment.getId(), articleId, userId));
+        return savedComment;
     }
 }
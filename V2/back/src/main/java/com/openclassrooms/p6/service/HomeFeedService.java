@@ -0,0 +1,291 @@
+package com.openclassrooms.p6.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.LongStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.ArticleDeletedEvent;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.event.SubscriptionChangedEvent;
+import com.openclassrooms.p6.event.UserUpdatedEvent;
+import com.openclassrooms.p6.feed.ArticleSummary;
+import com.openclassrooms.p6.feed.FeedEntry;
+import com.openclassrooms.p6.feed.FeedRing;
+import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.repository.SubscriptionRepository;
+import com.openclassrooms.p6.repository.projection.ArticleSummaryView;
+import com.openclassrooms.p6.utils.PageCursor;
+import com.openclassrooms.p6.utils.SortedLongSet;
+
+/**
+ * Materialized home feed of each user, kept up to date on write.
+ *
+ * <p>
+ * The feed of a user is a {@link FeedRing} of its most recent entries, held in
+ * the {@link CacheConfig#HOME_FEEDS_CACHE} cache. It is built from the database
+ * on the first read, then every published article is pushed to the rings of
+ * the subscribers of its theme that are currently materialized. A subscription
+ * change drops the ring of the user, which is rebuilt on its next read.
+ *
+ * <p>
+ * Pushing an article to every subscriber does not scale to the largest themes,
+ * so themes with at least {@code feed.hot-theme-threshold} subscribers are
+ * "hot": their articles are left out of the rings and merged in at read time
+ * with a query on those themes only. The summaries of the articles are shared
+ * by every ring through the {@link CacheConfig#ARTICLE_SUMMARIES_CACHE} cache.
+ * Pages reaching past the oldest entry of a ring that dropped entries fall
+ * back to the feed query.
+ */
+@Service
+public class HomeFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(HomeFeedService.class);
+
+    private static final Comparator<ArticleSummaryView> NEWEST_FIRST = Comparator
+            .comparing(ArticleSummaryView::getCreatedAt)
+            .thenComparing(ArticleSummaryView::getId)
+            .reversed();
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionsService subscriptionsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${feed.ring-capacity:500}")
+    private int ringCapacity;
+
+    @Value("${feed.hot-theme-threshold:5000}")
+    private long hotThemeThreshold;
+
+    private final Map<Long, Long> subscriberCounts = new ConcurrentHashMap<>();
+
+    private volatile SortedLongSet hotThemeIds = SortedLongSet.of(List.of());
+
+    /**
+     * Returns a page of the articles of the themes the user is subscribed to,
+     * ordered by {@code (createdAt, id)} descending.
+     *
+     * @param userId Identifier of the user.
+     * @param cursor Position of the last article of the previous page, or null
+     *               for the first page.
+     * @param size   Maximum number of articles.
+     * @return The page of article summaries.
+     */
+    public Slice<ArticleSummaryView> getFeedPage(Long userId, PageCursor cursor, int size) {
+        PageRequest pageRequest = PageRequest.ofSize(size);
+        FeedRing ring = getFeedRing(userId);
+
+        List<FeedEntry> entries = ring.page(cursor, size + 1);
+        if (entries.size() <= size && !ring.isComplete()) {
+            // La page dépasse la fenêtre matérialisée
+            return articleService.getFeedPage(userId, cursor, size);
+        }
+
+        List<ArticleSummaryView> articles = new ArrayList<>(getSummaries(entries));
+
+        List<Long> subscribedHotThemeIds = getSubscribedHotThemeIds(userId);
+        if (!subscribedHotThemeIds.isEmpty()) {
+            PageRequest hotPageRequest = PageRequest.ofSize(size + 1);
+            articles.addAll(cursor == null
+                    ? articleRepository.findThemesFeedFirstPage(subscribedHotThemeIds, hotPageRequest).getContent()
+                    : articleRepository.findThemesFeedPageAfter(
+                            subscribedHotThemeIds, cursor.createdAt(), cursor.id(), hotPageRequest).getContent());
+            articles.sort(NEWEST_FIRST);
+        }
+
+        boolean hasNext = articles.size() > size;
+        return new SliceImpl<>(articles.subList(0, Math.min(size, articles.size())), pageRequest, hasNext);
+    }
+
+    /**
+     * Loads the number of subscribers of every theme to tell the hot themes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSubscriberCounts() {
+        DataSourceRouting.readFromPrimary(subscriptionRepository::countSubscribersByTheme)
+                .forEach(count -> subscriberCounts.put(count.themeId(), count.subscribers()));
+        refreshHotThemes();
+    }
+
+    /**
+     * Pushes a published article to the materialized feeds of the subscribers
+     * of its theme, unless the theme is hot.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePublished(ArticlePublishedEvent event) {
+        if (hotThemeIds.contains(event.themeId())) {
+            return;
+        }
+
+        FeedEntry entry = new FeedEntry(event.articleId(), event.createdAt());
+        ConcurrentMap<Object, Object> feedRings = getFeedRings();
+        for (Long subscriberId : subscriptionRepository.findSubscribedUserIdsByThemeId(event.themeId())) {
+            // Attend un chargement en cours, qui a pu lire la base avant la publication
+            feedRings.computeIfPresent(subscriberId, (key, ring) -> {
+                ((FeedRing) ring).add(entry);
+                return ring;
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleDeleted(ArticleDeletedEvent event) {
+        getSummariesCache().evict(event.articleId());
+        getFeedRings().values().forEach(ring -> ((FeedRing) ring).remove(event.articleId()));
+    }
+
+    /**
+     * Drops the feed of the user and updates the number of subscribers of the
+     * theme. A theme becoming hot or cold changes the content of the rings of
+     * all its subscribers, so every feed is then dropped.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        getFeedsCache().evict(event.userId());
+
+        long subscribers = subscriberCounts.merge(event.themeId(), event.subscribed() ? 1L : -1L, Long::sum);
+        if ((subscribers >= hotThemeThreshold) != hotThemeIds.contains(event.themeId())) {
+            refreshHotThemes();
+        }
+    }
+
+    /**
+     * The cached summaries carry the username of their author, which may have
+     * changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        getSummariesCache().clear();
+    }
+
+    private synchronized void refreshHotThemes() {
+        SortedLongSet refreshedHotThemeIds = SortedLongSet.of(subscriberCounts.entrySet().stream()
+                .filter(count -> count.getValue() >= hotThemeThreshold)
+                .map(Map.Entry::getKey)
+                .toList());
+
+        if (refreshedHotThemeIds.size() != hotThemeIds.size()
+                || !LongStream.of(refreshedHotThemeIds.toArray()).allMatch(hotThemeIds::contains)) {
+            hotThemeIds = refreshedHotThemeIds;
+            getFeedsCache().clear();
+            logger.info("Hot themes, merged into the feeds at read time: {}", refreshedHotThemeIds.size());
+        }
+    }
+
+    private FeedRing getFeedRing(Long userId) {
+        return getFeedsCache().get(userId, () -> loadFeedRing(userId));
+    }
+
+    private FeedRing loadFeedRing(Long userId) {
+        SortedLongSet excludedThemeIds = hotThemeIds;
+        PageRequest window = PageRequest.ofSize(ringCapacity);
+
+        // La fenêtre n'est ensuite complétée que par les événements
+        Slice<ArticleSummaryView> articles = DataSourceRouting.readFromPrimary(() -> excludedThemeIds.isEmpty()
+                ? articleRepository.findFeedFirstPage(userId, window)
+                : articleRepository.findFeedFirstPageExcludingThemes(
+                        userId, LongStream.of(excludedThemeIds.toArray()).boxed().toList(), window));
+
+        Cache summaries = getSummariesCache();
+        List<FeedEntry> entries = new ArrayList<>(articles.getNumberOfElements());
+        for (ArticleSummaryView article : articles) {
+            ArticleSummary summary = ArticleSummary.of(article);
+            summaries.put(summary.id(), summary);
+            entries.add(summary.toFeedEntry());
+        }
+
+        return new FeedRing(ringCapacity, entries, !articles.hasNext());
+    }
+
+    /**
+     * Returns the summaries of the entries, in the same order, reading the
+     * summaries missing from the cache in a single query.
+     */
+    private List<ArticleSummaryView> getSummaries(List<FeedEntry> entries) {
+        Cache summariesCache = getSummariesCache();
+        Map<Long, ArticleSummaryView> summaries = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+
+        for (FeedEntry entry : entries) {
+            ArticleSummaryView summary = summariesCache.get(entry.articleId(), ArticleSummaryView.class);
+            if (summary == null) {
+                missingIds.add(entry.articleId());
+            } else {
+                summaries.put(entry.articleId(), summary);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (ArticleSummaryView article : DataSourceRouting.readFromPrimary(
+                    () -> articleRepository.findSummariesByIdIn(missingIds))) {
+                ArticleSummary summary = ArticleSummary.of(article);
+                summariesCache.put(summary.id(), summary);
+                summaries.put(summary.id(), summary);
+            }
+        }
+
+        // Les articles supprimés entre-temps n'ont plus de résumé
+        return entries.stream()
+                .map(entry -> summaries.get(entry.articleId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<Long> getSubscribedHotThemeIds(Long userId) {
+        SortedLongSet hotThemes = hotThemeIds;
+        if (hotThemes.isEmpty()) {
+            return List.of();
+        }
+
+        SortedLongSet subscribedThemeIds = subscriptionsService.getSubscribedThemeIds(userId);
+        return LongStream.of(hotThemes.toArray()).filter(subscribedThemeIds::contains).boxed().toList();
+    }
+
+    /**
+     * @return The materialized rings, by user. The compute methods of the view
+     *         wait for the rings being loaded.
+     */
+    private ConcurrentMap<Object, Object> getFeedRings() {
+        return ((CaffeineCache) getFeedsCache()).getNativeCache().asMap();
+    }
+
+    private Cache getFeedsCache() {
+        return cacheManager.getCache(CacheConfig.HOME_FEEDS_CACHE);
+    }
+
+    private Cache getSummariesCache() {
+        return cacheManager.getCache(CacheConfig.ARTICLE_SUMMARIES_CACHE);
+    }
+}
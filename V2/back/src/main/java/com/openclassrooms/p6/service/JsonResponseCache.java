@@ -0,0 +1,145 @@
+package com.openclassrooms.p6.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.utils.ETags;
+
+/**
+ * Cache of serialized JSON response bodies shared by every user.
+ *
+ * <p>
+ * A body is serialized once, and compressed once when it is large enough, then
+ * written as is by the following requests. Keys are built from the versions of
+ * {@link ResourceVersionService}: a write moves the resource to a new key, so
+ * the previous body is never served again and simply ages out of the
+ * {@link CacheConfig#JSON_RESPONSES_CACHE} cache, bounded by its size in bytes.
+ */
+@Service
+public class JsonResponseCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${response-cache.gzip-min-size:1024}")
+    private int gzipMinSize;
+
+    /**
+     * Serialized response body.
+     *
+     * @param json        The JSON bytes.
+     * @param gzippedJson The gzipped JSON bytes, or null if the body is too
+     *                    small to be worth compressing.
+     * @param themeId     Identifier of the theme the response is restricted
+     *                    to, or null if any authenticated user may read it.
+     */
+    public record CachedBody(byte[] json, byte[] gzippedJson, Long themeId) {
+
+        public int weight() {
+            return json.length + (gzippedJson == null ? 0 : gzippedJson.length);
+        }
+
+        /**
+         * Writes the body in the encoding accepted by the client.
+         *
+         * @param builder        The response, with its status and validators.
+         * @param etag           The entity tag of the uncompressed body.
+         * @param acceptEncoding The {@code Accept-Encoding} header of the
+         *                       request, may be null.
+         * @return The response.
+         */
+        public ResponseEntity<byte[]> toResponse(ResponseEntity.BodyBuilder builder, String etag,
+                String acceptEncoding) {
+            builder.contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (gzippedJson != null && acceptsGzip(acceptEncoding)) {
+                return builder.eTag(ETags.forGzip(etag))
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .body(gzippedJson);
+            }
+            return builder.eTag(etag).body(json);
+        }
+    }
+
+    public Optional<CachedBody> get(String key) {
+        return Optional.ofNullable(getCache().get(key, CachedBody.class));
+    }
+
+    /**
+     * Serializes a response body and caches it.
+     *
+     * @param key      Versioned key of the response.
+     * @param response The response body.
+     * @param themeId  Identifier of the theme the response is restricted to,
+     *                 or null.
+     * @return The cached body.
+     */
+    public CachedBody put(String key, Object response, Long themeId) {
+        CachedBody body = serialize(response, themeId);
+        getCache().put(key, body);
+        return body;
+    }
+
+    /**
+     * Serializes a response body without caching it, for the responses of a
+     * single user, so that they are compressed and tagged as the cached ones
+     * rather than compressed on the fly by the server.
+     *
+     * @param response The response body.
+     * @param themeId  Identifier of the theme the response is restricted to,
+     *                 or null.
+     * @return The serialized body.
+     */
+    public CachedBody serialize(Object response, Long themeId) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return new CachedBody(json, json.length >= gzipMinSize ? gzip(json) : null, themeId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(CacheConfig.JSON_RESPONSES_CACHE);
+    }
+}
@@ -0,0 +1,230 @@
+package com.openclassrooms.p6.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.ArticleDeletedEvent;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.event.CommentPostedEvent;
+import com.openclassrooms.p6.event.UserUpdatedEvent;
+import com.openclassrooms.p6.model.Themes;
+import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.repository.CommentRepository;
+import com.openclassrooms.p6.repository.projection.ArticleVersion;
+import com.openclassrooms.p6.repository.projection.ThemeArticlesVersion;
+import com.openclassrooms.p6.utils.ETags;
+import com.openclassrooms.p6.utils.SortedLongSet;
+
+/**
+ * Versions of the resources served by the read endpoints, used to build their
+ * entity tags.
+ *
+ * <p>
+ * Every version is derived from the persisted rows, as a number of rows and
+ * their last update: the themes, the articles of each theme with their
+ * authors, and each article with its comments and their authors. The same
+ * data gives the same tags on every instance and across restarts. The themes
+ * are read from their cache; the versions of the articles are kept in the
+ * {@link CacheConfig#THEME_ARTICLES_VERSIONS_CACHE} and
+ * {@link CacheConfig#ARTICLE_VERSIONS_CACHE} caches, read from the primary
+ * database on a miss and evicted by the write events once the write is
+ * committed. A change of user only evicts the versions of the themes and
+ * articles the user wrote in.
+ *
+ * <p>
+ * A request reading a version before its data can only pair new data with an
+ * old version, which costs one extra full response but never serves stale
+ * data as current. An instance is not told about the writes handled by the
+ * others, so it may keep an older version until the entry expires
+ * ({@code cache.resource-versions.ttl}).
+ */
+@Service
+public class ResourceVersionService {
+
+    private static final long THEMES_RESOURCE = 1;
+    private static final long ARTICLES_RESOURCE = 2;
+    private static final long ARTICLE_RESOURCE = 3;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private SubscriptionsService subscriptionsService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Entity tag of the list of themes, from the cached themes.
+     */
+    public String getThemesETag() {
+        List<Themes> themes = themeService.getThemes();
+        long lastUpdatedAt = themes.stream().mapToLong(theme -> toNanos(theme.getUpdatedAt())).max().orElse(0);
+        return ETags.of(THEMES_RESOURCE, themes.size(), lastUpdatedAt);
+    }
+
+    /**
+     * Entity tag of the article lists of a user: they change with the
+     * articles of the subscribed themes or their authors, or with the
+     * subscriptions of the user.
+     *
+     * @param userId     Identifier of the user.
+     * @param parameters Paging parameters of the request, hashed into the tag.
+     * @return The entity tag.
+     */
+    public String getArticlesETag(Long userId, Object... parameters) {
+        SortedLongSet themeIds = subscriptionsService.getSubscribedThemeIds(userId);
+        Map<Object, Object> versions = getThemeArticlesVersions(themeIds);
+
+        LongStream.Builder components = LongStream.builder()
+                .add(ARTICLES_RESOURCE)
+                .add(userId)
+                .add(Arrays.hashCode(parameters));
+        for (long themeId : themeIds.toArray()) {
+            ThemeArticlesVersion version = (ThemeArticlesVersion) versions.get(themeId);
+            components.add(themeId)
+                    .add(version.articles())
+                    .add(toNanos(version.lastUpdatedAt()))
+                    .add(toNanos(version.lastAuthorUpdatedAt()));
+        }
+        return ETags.of(components.build().toArray());
+    }
+
+    /**
+     * Entity tag of the detail of an article as seen by a user: it changes
+     * with the article, its comments or their authors, or when the user
+     * subscribes to or unsubscribes from its theme.
+     *
+     * @param userId    Identifier of the user.
+     * @param articleId Identifier of the article.
+     * @return The entity tag.
+     */
+    public String getArticleETag(Long userId, Long articleId) {
+        ArticleVersion version = getArticleVersion(articleId);
+        boolean subscribed = version.themeId() != null
+                && subscriptionsService.isUserSubscribedToTheme(userId, version.themeId());
+
+        return ETags.of(ARTICLE_RESOURCE, toLong(version), subscribed ? 1 : 0, userId, articleId);
+    }
+
+    /**
+     * Cache key of the serialized detail of an article, shared by every user
+     * allowed to read it.
+     *
+     * @param articleId Identifier of the article.
+     * @return The cache key.
+     */
+    public String getArticleBodyKey(Long articleId) {
+        return ETags.of(ARTICLE_RESOURCE, toLong(getArticleVersion(articleId)), articleId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePublished(ArticlePublishedEvent event) {
+        getThemeArticlesVersionsCache().evict(event.themeId());
+        getArticleVersionsCache().evict(event.articleId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleDeleted(ArticleDeletedEvent event) {
+        getThemeArticlesVersionsCache().evict(event.themeId());
+        getArticleVersionsCache().evict(event.articleId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentPosted(CommentPostedEvent event) {
+        getArticleVersionsCache().evict(event.articleId());
+    }
+
+    /**
+     * The username is shown in the lists of the themes the user published in
+     * and in the detail of the articles the user wrote or commented.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        Cache themeArticlesVersions = getThemeArticlesVersionsCache();
+        DataSourceRouting.readFromPrimary(() -> articleRepository.findThemeIdsByUserId(event.userId()))
+                .forEach(themeArticlesVersions::evict);
+
+        Cache articleVersions = getArticleVersionsCache();
+        DataSourceRouting.readFromPrimary(() -> articleRepository.findIdsByUserId(event.userId()))
+                .forEach(articleVersions::evict);
+        DataSourceRouting.readFromPrimary(() -> commentRepository.findArticleIdsByUserId(event.userId()))
+                .forEach(articleVersions::evict);
+    }
+
+    /**
+     * Returns the versions of the articles of the themes, reading the versions
+     * missing from the cache in a single query. An eviction during the load
+     * drops the loaded entry, so the cache never keeps a version read before a
+     * commit.
+     *
+     * @return The versions, by theme identifier.
+     */
+    private Map<Object, Object> getThemeArticlesVersions(SortedLongSet themeIds) {
+        List<Long> keys = LongStream.of(themeIds.toArray()).boxed().toList();
+
+        return ((CaffeineCache) getThemeArticlesVersionsCache()).getAsyncCache()
+                .getAll(keys, (missingIds, executor) -> CompletableFuture.supplyAsync(
+                        () -> loadThemeArticlesVersions(missingIds), executor))
+                .join();
+    }
+
+    private Map<Object, Object> loadThemeArticlesVersions(Set<?> themeIds) {
+        List<Long> ids = themeIds.stream().map(Long.class::cast).toList();
+
+        Map<Object, Object> versions = new HashMap<>();
+        ids.forEach(themeId -> versions.put(themeId, ThemeArticlesVersion.empty(themeId)));
+        DataSourceRouting.readFromPrimary(() -> articleRepository.findVersionsByThemeIdIn(ids))
+                .forEach(version -> versions.put(version.themeId(), version));
+        return versions;
+    }
+
+    private ArticleVersion getArticleVersion(Long articleId) {
+        return getArticleVersionsCache().get(articleId, () -> DataSourceRouting.readFromPrimary(
+                () -> articleRepository.findVersionById(articleId)).orElse(ArticleVersion.NONE));
+    }
+
+    private static long toLong(ArticleVersion version) {
+        return ETags.hash(
+                version.themeId() == null ? 0 : version.themeId(),
+                toNanos(version.updatedAt()),
+                toNanos(version.authorUpdatedAt()),
+                version.comments(),
+                toNanos(version.lastCommentUpdatedAt()),
+                toNanos(version.lastCommenterUpdatedAt()));
+    }
+
+    private static long toNanos(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private Cache getThemeArticlesVersionsCache() {
+        return cacheManager.getCache(CacheConfig.THEME_ARTICLES_VERSIONS_CACHE);
+    }
+
+    private Cache getArticleVersionsCache() {
+        return cacheManager.getCache(CacheConfig.ARTICLE_VERSIONS_CACHE);
+    }
+}
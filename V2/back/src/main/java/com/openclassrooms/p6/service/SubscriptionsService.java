@@ -1,21 +1,39 @@
 package com.openclassrooms.p6.service;
 
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.SubscriptionChangedEvent;
 import com.openclassrooms.p6.model.Subscriptions;
 import com.openclassrooms.p6.repository.SubscriptionRepository;
+import com.openclassrooms.p6.utils.SortedLongSet;
 
 import lombok.Data;
 
 /**
  * Service class for managing subscriptions.
+ *
+ * <p>
+ * The identifiers of the themes each user is subscribed to are kept in the
+ * {@link CacheConfig#SUBSCRIBED_THEMES_CACHE} cache, loaded on first use and
+ * updated once every subscription write is committed, so that subscription checks do not
+ * query the database.
  */
 @Data
 @Service
+@Transactional(readOnly = true)
 public class SubscriptionsService {
 
     /**
@@ -25,6 +43,12 @@ public class SubscriptionsService {
     @Autowired
     private SubscriptionRepository subscriptionRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Returns an {@link Optional} containing the {@link Subscriptions} entity
      * identified by the given id.
@@ -38,34 +62,62 @@ public class SubscriptionsService {
     }
 
     /**
-     * Creates a new {@link Subscriptions} entity and persists it to the database.
-     * Sets default values for the isSubscribed attribute.
+     * Creates a new subscription of the user to the theme, unless one already
+     * exists. The unique constraint on {@code (userid, themeid)} rejects the
+     * insert of an existing subscription, so no prior read is needed. The
+     * insert runs in its own transaction, so that its failure does not mark a
+     * surrounding transaction rollback-only.
      *
      * @param userId  Unique identifier of the user related to the subscription.
      * @param themeId Unique identifier of the theme related to the subscription.
-     * @return Created and persisted {@link Subscriptions} entity.
+     * @return The created subscription, or empty if one already existed.
      */
-    public Subscriptions createSubscription(Long userId, Long themeId) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<Subscriptions> createSubscriptionIfAbsent(Long userId, Long themeId) {
         Subscriptions subscription = new Subscriptions();
         subscription.setUserId(userId);
         subscription.setThemeId(themeId);
         subscription.setIsSubscribed(true);
 
-        return subscriptionRepository.save(subscription);
+        try {
+            Subscriptions savedSubscription = subscriptionRepository.saveAndFlush(subscription);
+            eventPublisher.publishEvent(new SubscriptionChangedEvent(userId, themeId, true));
+            return Optional.of(savedSubscription);
+        } catch (DataIntegrityViolationException e) {
+            return Optional.empty();
+        }
     }
 
     /**
-     * Updates the value of the isSubscribed attribute for the provided
-     * {@link Subscriptions} entity and saves it to the database.
+     * Sets the isSubscribed attribute of an existing subscription with a single
+     * conditional update.
      *
-     * @param subscription Target {@link Subscriptions} entity whose isSubscribed
-     *                     attribute should be modified.
+     * @param userId       Identifier of the user related to the subscription.
+     * @param themeId      Identifier of the theme related to the subscription.
      * @param isSubscribed Desired value for the isSubscribed attribute.
+     * @return True if the subscription existed with the other value and was
+     *         updated, false otherwise.
      */
-    public void updateThemeSubscription(Subscriptions subscription, boolean isSubscribed) {
-        subscription.setIsSubscribed(isSubscribed);
+    @Transactional
+    public boolean updateThemeSubscription(Long userId, Long themeId, boolean isSubscribed) {
+        boolean isUpdated = subscriptionRepository.updateSubscriptionState(userId, themeId, isSubscribed) > 0;
+
+        if (isUpdated) {
+            eventPublisher.publishEvent(new SubscriptionChangedEvent(userId, themeId, isSubscribed));
+        }
+        return isUpdated;
+    }
 
-        subscriptionRepository.save(subscription);
+    /**
+     * Checks whether a subscription of the user to the theme exists, whatever its
+     * state.
+     *
+     * @param userId  Identifier of the user.
+     * @param themeId Identifier of the theme.
+     * @return True if the subscription exists.
+     */
+    public boolean subscriptionExists(Long userId, Long themeId) {
+        return subscriptionRepository.existsByUserIdAndThemeId(userId, themeId);
     }
 
     /**
@@ -78,10 +130,48 @@ public class SubscriptionsService {
     public Iterable<Subscriptions> findAllUserSubscriptions(Long userId) {
         return subscriptionRepository.findAllByUserId(userId);
     }
+
+    /**
+     * Returns the identifiers of the themes the user is subscribed to. The
+     * cached set is only updated by the writes, so it is loaded from the
+     * primary database.
+     *
+     * @param userId Identifier of the user.
+     * @return The subscribed theme identifiers.
+     */
+    public SortedLongSet getSubscribedThemeIds(Long userId) {
+        return getSubscribedThemesCache().get(userId,
+                () -> SortedLongSet.of(DataSourceRouting.readFromPrimary(
+                        () -> subscriptionRepository.findSubscribedThemeIdsByUserId(userId))));
+    }
+
+    /**
+     * Checks whether the user is currently subscribed to the theme.
+     *
+     * @param userId  Identifier of the user.
+     * @param themeId Identifier of the theme.
+     * @return True if the user is subscribed to the theme.
+     */
     public boolean isUserSubscribedToTheme(Long userId, Long themeId) {
-        Iterable<Subscriptions> subscriptions = findAllUserSubscriptions(userId);
-        return StreamSupport.stream(subscriptions.spliterator(), false)
-                .anyMatch(s -> s.getThemeId().equals(themeId) && Boolean.TRUE.equals(s.getIsSubscribed()));
+        return getSubscribedThemeIds(userId).contains(themeId);
     }
 
-}
\ No newline at end of file
+    /**
+     * Applies a committed subscription change to the cached theme identifiers
+     * of the user, if they are cached. The update waits for any load of the
+     * same entry in progress, so the cache never keeps a set read before the
+     * commit, and a rolled back change never reaches the cache.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        CaffeineCache cache = (CaffeineCache) getSubscribedThemesCache();
+
+        cache.getNativeCache().asMap().computeIfPresent(event.userId(), (key, themeIds) -> event.subscribed()
+                ? ((SortedLongSet) themeIds).with(event.themeId())
+                : ((SortedLongSet) themeIds).without(event.themeId()));
+    }
+
+    private Cache getSubscribedThemesCache() {
+        return cacheManager.getCache(CacheConfig.SUBSCRIBED_THEMES_CACHE);
+    }
+}
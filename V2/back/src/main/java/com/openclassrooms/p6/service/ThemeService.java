@@ -3,9 +3,24 @@ package com.openclassrooms.p6.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.ThemeCreatedEvent;
 import com.openclassrooms.p6.model.Themes;
 import com.openclassrooms.p6.repository.ThemeRepository;
 
@@ -13,10 +28,19 @@ import lombok.Data;
 
 /**
  * Service class for managing themes.
+ *
+ * <p>
+ * Themes are read on every listing and every article publication but rarely
+ * written, so reads are served from the theme caches declared in
+ * {@link CacheConfig}, which are refreshed whenever a theme is created. They
+ * are therefore loaded from the primary database.
  */
 @Data
 @Service
+@Transactional(readOnly = true)
 public class ThemeService {
+    private static final Logger logger = LoggerFactory.getLogger(ThemeService.class);
+
     /**
      * 
      * Theme repo to perform database operations on the {@link Themes} entity.
@@ -24,13 +48,17 @@ public class ThemeService {
     @Autowired
     private ThemeRepository themeRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Retrieve all themes.
      *
      * @return A collection of all themes as a list.
      */
+    @Cacheable(cacheNames = CacheConfig.THEMES_CACHE, key = "'all'")
     public List<Themes> getThemes() {
-        return themeRepository.findAll();
+        return DataSourceRouting.readFromPrimary(themeRepository::findAll);
     }
 
     /**
@@ -39,12 +67,88 @@ public class ThemeService {
      * @param themeId The identifier of the theme.
      * @return An Optional containing the theme if found, or empty if not.
      */
+    @Cacheable(cacheNames = CacheConfig.THEME_BY_ID_CACHE, key = "#themeId")
     public Optional<Themes> getThemeById(final Long themeId) {
-        return themeRepository.findById(themeId);
+        return DataSourceRouting.readFromPrimary(() -> themeRepository.findById(themeId));
+    }
+
+    /**
+     * Retrieves a theme by its title, ignoring case.
+     *
+     * @param title The title of the theme.
+     * @return An Optional containing the theme if found, or empty if not.
+     */
+    @Cacheable(cacheNames = CacheConfig.THEME_BY_TITLE_CACHE,
+            key = "T(com.openclassrooms.p6.model.Themes).normalizeTitle(#title)")
+    public Optional<Themes> getThemeByTitle(final String title) {
+        return DataSourceRouting.readFromPrimary(
+                () -> themeRepository.findByNormalizedTitle(Themes.normalizeTitle(title)));
     }
 
+    /**
+     * Persists a theme and refreshes the theme caches.
+     *
+     * @param theme The theme to be created.
+     * @return The saved theme.
+     */
+    @Caching(
+            put = {
+                    @CachePut(cacheNames = CacheConfig.THEME_BY_ID_CACHE, key = "#result.id"),
+                    @CachePut(cacheNames = CacheConfig.THEME_BY_TITLE_CACHE,
+                            key = "T(com.openclassrooms.p6.model.Themes).normalizeTitle(#result.title)")
+            },
+            evict = @CacheEvict(cacheNames = CacheConfig.THEMES_CACHE, allEntries = true))
+    @Transactional
     public Themes createTheme(final Themes theme) {
-        return themeRepository.save(theme);
+        Themes savedTheme = themeRepository.save(theme);
+        eventPublisher.publishEvent(new ThemeCreatedEvent(savedTheme.getId()));
+        return savedTheme;
     }
-}
 
+    /**
+     * Creates a theme with the given title unless one with the same normalized
+     * title already exists. Concurrent callers converge on a single row: the
+     * unique index on the normalized title rejects the losing inserts, which
+     * then read the winning row. The insert runs in its own transaction, so
+     * that its failure does not mark a surrounding transaction rollback-only.
+     *
+     * @param title The title of the theme.
+     * @return The created or already existing theme.
+     */
+    @Caching(
+            put = {
+                    @CachePut(cacheNames = CacheConfig.THEME_BY_ID_CACHE, key = "#result.id"),
+                    @CachePut(cacheNames = CacheConfig.THEME_BY_TITLE_CACHE,
+                            key = "T(com.openclassrooms.p6.model.Themes).normalizeTitle(#result.title)")
+            },
+            evict = @CacheEvict(cacheNames = CacheConfig.THEMES_CACHE, allEntries = true))
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Themes createThemeIfAbsent(final String title) {
+        Themes theme = new Themes();
+        theme.setTitle(title);
+
+        try {
+            Themes savedTheme = themeRepository.saveAndFlush(theme);
+            eventPublisher.publishEvent(new ThemeCreatedEvent(savedTheme.getId()));
+            return savedTheme;
+        } catch (DataIntegrityViolationException e) {
+            return themeRepository.findByNormalizedTitle(Themes.normalizeTitle(title)).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Fills the normalized title of the themes created before it was stored.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillNormalizedTitles() {
+        try {
+            int updatedThemes = themeRepository.backfillNormalizedTitles();
+            if (updatedThemes > 0) {
+                logger.info("Normalized the title of {} themes", updatedThemes);
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Could not normalize theme titles, duplicate titles must be merged first", e);
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.openclassrooms.p6.service;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.openclassrooms.p6.configuration.CacheConfig;
+import com.openclassrooms.p6.configuration.datasource.DataSourceRouting;
+import com.openclassrooms.p6.event.UserUpdatedEvent;
+import com.openclassrooms.p6.exception.ApiException;
 import com.openclassrooms.p6.model.Users;
 import com.openclassrooms.p6.payload.request.RegisterRequest;
 import com.openclassrooms.p6.repository.UserRepository;
+import com.openclassrooms.p6.repository.projection.UserAuthState;
 
 import lombok.Data;
 
@@ -18,28 +33,50 @@ import lombok.Data;
  */
 @Data
 @Service
+@Transactional(readOnly = true)
 public class UserService {
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private final BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     public Optional<Users> getUserById(final Long id) {
         return userRepository.findById(id);
     }
 
+    /**
+     * Returns the state used to authorize the requests of a user. The state is
+     * cached until a change to the user is committed, so it is read
+     * from the primary database.
+     *
+     * @param userId The identifier of the user.
+     * @return The state of the user, or empty if the user does not exist.
+     */
+    @Cacheable(cacheNames = CacheConfig.USER_AUTH_STATES_CACHE, key = "#userId")
+    public Optional<UserAuthState> getUserAuthState(final Long userId) {
+        return DataSourceRouting.readFromPrimary(() -> userRepository.findAuthStateById(userId));
+    }
+
     public Iterable<Users> getUsers() {
         return userRepository.findAll();
     }
 
+    @Transactional
     public Users saveUser(Users user) {
-        return userRepository.save(user);
+        Users savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(savedUser.getId()));
+        return savedUser;
     }
 
+    @Transactional
     public void deleteUser(final Long id) {
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserUpdatedEvent(id));
     }
 
     public Optional<Users> getUserByUsername(String username) {
@@ -47,8 +84,7 @@ public class UserService {
     }
 
     public boolean isUsernameInUse(String username) {
-        Optional<Users> existingUser = getUserByUsername(username);
-        return existingUser.isPresent();
+        return userRepository.existsByUsername(username);
     }
 
     public Optional<Users> getUserByEmail(String email) {
@@ -56,19 +92,36 @@ public class UserService {
     }
 
     public boolean isEmailInUse(String email) {
-        Optional<Users> existingUser = getUserByEmail(email);
-        return existingUser.isPresent();
+        return userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Finds the user whose email or username is the given identifier, with a
+     * single query. A match on the email takes precedence.
+     *
+     * @param identifier The email or username of the user.
+     * @return The matching user, or empty if there is none.
+     */
+    public Optional<Users> getUserByIdentifier(String identifier) {
+        List<Users> users = userRepository.findAllByEmailOrUsername(identifier);
+
+        return users.stream()
+                .filter(user -> identifier.equals(user.getEmail()))
+                .findFirst()
+                .or(() -> users.stream().findFirst());
     }
 
     public boolean isPasswordValid(String password, Users user) {
-        return passwordEncoder.matches(password, user.getPassword());
+        return passwordHashingService.matches(password, user.getPassword());
     }
 
+    // Le conflit est relu hors de la transaction de l'insertion, qui a échoué
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Users saveUserBySignUp(RegisterRequest registrationRequest) {
         Users user = new Users();
 
         LocalDateTime currentTime = LocalDateTime.now();
-        String encodedPassword = passwordEncoder.encode(registrationRequest.password());
+        String encodedPassword = passwordHashingService.encode(registrationRequest.password());
 
         user.setUsername(registrationRequest.username());
         user.setEmail(registrationRequest.email());
@@ -76,20 +129,60 @@ public class UserService {
         user.setCreatedAt(currentTime);
         user.setUpdatedAt(currentTime);
 
-        return saveUser(user);
+        // Les contraintes d'unicité détectent les conflits, sans lecture préalable
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw toRegistrationError(registrationRequest);
+        }
+    }
+
+    /**
+     * Tells which unique column rejected the insert of a new user, by reading
+     * both from the primary database. An insert rejected by neither broke
+     * another constraint of the table.
+     */
+    private ApiException toRegistrationError(RegisterRequest registrationRequest) {
+        String conflict = DataSourceRouting.readFromPrimary(() -> {
+            if (isUsernameInUse(registrationRequest.username())) {
+                return "Username is already in use";
+            }
+            return isEmailInUse(registrationRequest.email()) ? "Email is already in use" : null;
+        });
+
+        if (conflict == null) {
+            String error = "Invalid user data";
+            return new ApiException(error, List.of(error), HttpStatus.BAD_REQUEST, LocalDateTime.now());
+        }
+        return new ApiException(conflict, List.of(conflict), HttpStatus.CONFLICT, LocalDateTime.now());
     }
 
     public String encodePassword(String password) {
-        return passwordEncoder.encode(password);
+        return passwordHashingService.encode(password);
     }
-    
+
+    @Transactional
     public void changePassword(Long userId, String currentPassword, String newPassword) {
+        // Le hachage précède la lecture, pour ne pas garder la connexion pendant le calcul
+        String encodedPassword = encodePassword(newPassword);
         Users user = getUserById(userId).orElseThrow(() ->
                 new RuntimeException("User not found")
         );
 
-        user.setPassword(encodePassword(newPassword));
+        user.setPassword(encodedPassword);
         user.setPasswordChangedAt(LocalDateTime.now());
         saveUser(user);
     }
+
+    /**
+     * Evicts the authorization state of the user once the change is committed:
+     * evicted earlier, it could be cached again from the previous row by a
+     * concurrent request. Runs before the other listeners, which may check the
+     * tokens of the user.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    @CacheEvict(cacheNames = CacheConfig.USER_AUTH_STATES_CACHE, key = "#event.userId()")
+    public void onUserUpdated(UserUpdatedEvent event) {
+    }
 }
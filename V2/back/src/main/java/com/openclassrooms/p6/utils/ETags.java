@@ -0,0 +1,90 @@
+package com.openclassrooms.p6.utils;
+
+import org.springframework.http.CacheControl;
+
+/**
+ * Helpers for strong entity tags built from resource versions.
+ */
+public final class ETags {
+
+    /**
+     * Lets the browser keep the response but revalidate it on every use. It
+     * also replaces the {@code no-store} header Spring Security adds by default.
+     */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final String GZIP_SUFFIX = "-gzip\"";
+
+    private ETags() {
+    }
+
+    /**
+     * Builds a strong entity tag from a sequence of version components.
+     *
+     * @param components The values the response depends on.
+     * @return The quoted entity tag.
+     */
+    public static String of(long... components) {
+        return "\"" + Long.toHexString(hash(components)) + "\"";
+    }
+
+    /**
+     * Hashes a sequence of version components into a single one.
+     *
+     * @param components The values to hash, in order.
+     * @return The hash.
+     */
+    public static long hash(long... components) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (long component : components) {
+            hash = mix(hash ^ component);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the entity tag of the gzipped variant of a response, which must
+     * differ from the tag of the uncompressed bytes.
+     */
+    public static String forGzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX;
+    }
+
+    /**
+     * Checks whether an {@code If-None-Match} header matches the given entity
+     * tag, using the weak comparison required for this header. The {@code *}
+     * wildcard is not honoured, as it would answer without any check.
+     *
+     * @param ifNoneMatch The value of the header, may be null.
+     * @param etag        The current entity tag of the resource.
+     * @return True if the client copy is up to date.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (opaqueTag(candidate.trim()).equals(opaqueTag(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strips the weakness indicator and the content-coding suffix of a tag.
+     */
+    private static String opaqueTag(String tag) {
+        String opaqueTag = tag.startsWith("W/") ? tag.substring(2) : tag;
+        return opaqueTag.endsWith(GZIP_SUFFIX)
+                ? opaqueTag.substring(0, opaqueTag.length() - GZIP_SUFFIX.length()) + "\""
+                : opaqueTag;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
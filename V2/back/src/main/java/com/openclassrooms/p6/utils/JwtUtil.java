@@ -3,10 +3,20 @@ package com.openclassrooms.p6.utils;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 
+import com.openclassrooms.p6.configuration.CacheConfig;
+
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
 import java.util.Optional;
 
 @Component
@@ -15,36 +25,77 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secretKeyString;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     private Key secretKey;
 
+    private JwtParser jwtParser;
+
+    private Cache verifiedTokensCache;
+
     @PostConstruct
     public void init() {
         // Convertit la clé String en clé HMAC utilisable
         this.secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes());
+        // Le parser est immuable et thread-safe : il est construit une seule fois
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        this.verifiedTokensCache = cacheManager.getCache(CacheConfig.VERIFIED_TOKENS_CACHE);
     }
 
     public String generateJwtToken(Long userId) {
         return Jwts.builder()
                 .setSubject(String.valueOf(userId))
+                .setIssuedAt(new Date())
                 .signWith(secretKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public boolean isTokenValid(String token) {
+    /**
+     * Verifies the signature of the token and returns its claims.
+     *
+     * <p>
+     * Claims of already verified tokens are cached under the SHA-256 hash of the
+     * token, so a token presented again is not parsed nor verified again until it
+     * expires or leaves the cache.
+     *
+     * @param token The compact JWT.
+     * @return The claims of the token, or empty if the token is invalid or
+     *         expired.
+     */
+    public Optional<Claims> parseVerifiedClaims(String token) {
+        String tokenHash = hashToken(token);
+
+        Claims cachedClaims = verifiedTokensCache.get(tokenHash, Claims.class);
+        if (cachedClaims != null) {
+            if (isExpired(cachedClaims)) {
+                verifiedTokensCache.evict(tokenHash);
+                return Optional.empty();
+            }
+            return Optional.of(cachedClaims);
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token);
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            verifiedTokensCache.put(tokenHash, claims);
+            return Optional.of(claims);
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
         }
     }
 
+    public boolean isTokenValid(String token) {
+        return parseVerifiedClaims(token).isPresent();
+    }
+
     public Optional<Long> extractUserId(String token) {
+        return parseVerifiedClaims(token).flatMap(JwtUtil::extractUserId);
+    }
+
+    public static Optional<Long> extractUserId(Claims claims) {
         try {
-            Claims claims = Jwts.parserBuilder().setSigningKey(secretKey)
-                    .build().parseClaimsJws(token).getBody();
             return Optional.of(Long.parseLong(claims.getSubject()));
-        } catch (Exception e) {
+        } catch (NumberFormatException e) {
             return Optional.empty();
         }
     }
@@ -52,4 +103,18 @@ public class JwtUtil {
     public static String extractJwtFromHeader(String header) {
         return header.substring(7); // retire "Bearer "
     }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+
+    private static String hashToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package com.openclassrooms.p6.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Keyset pagination cursor pointing at the last row of a page ordered by
+ * {@code (createdAt, id)}.
+ *
+ * <p>
+ * The cursor is exchanged with clients as an opaque URL-safe Base64 string so
+ * that the next page can be queried with a range predicate instead of an
+ * {@code OFFSET}, which keeps page cost constant regardless of depth.
+ */
+public record PageCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Builds the opaque representation of this cursor.
+     *
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param value The encoded cursor, may be null.
+     * @return The decoded cursor, or empty if the value is missing or malformed.
+     */
+    public static Optional<PageCursor> decode(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                return Optional.empty();
+            }
+
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separatorIndex));
+            Long id = Long.parseLong(raw.substring(separatorIndex + 1));
+            return Optional.of(new PageCursor(createdAt, id));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
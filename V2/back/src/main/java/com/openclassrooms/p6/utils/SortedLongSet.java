@@ -0,0 +1,97 @@
+package com.openclassrooms.p6.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of {@code long} values backed by a sorted primitive array.
+ *
+ * <p>
+ * Membership is checked with a binary search over a compact array instead of
+ * boxed {@link Long} collections. Updates return a new instance, so a set can
+ * be shared between threads without synchronization.
+ */
+public final class SortedLongSet {
+
+    private static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+    private final long[] values;
+
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Builds a set from the given values, ignoring duplicates.
+     *
+     * @param values The values of the set.
+     * @return The set.
+     */
+    public static SortedLongSet of(Collection<Long> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+
+        long[] sortedValues = values.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        return new SortedLongSet(sortedValues);
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Returns a set containing the values of this set and the given value.
+     *
+     * @param value The value to add.
+     * @return This set if it already contains the value, a new set otherwise.
+     */
+    public SortedLongSet with(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+
+        int insertionPoint = -index - 1;
+        long[] newValues = new long[values.length + 1];
+        System.arraycopy(values, 0, newValues, 0, insertionPoint);
+        newValues[insertionPoint] = value;
+        System.arraycopy(values, insertionPoint, newValues, insertionPoint + 1, values.length - insertionPoint);
+        return new SortedLongSet(newValues);
+    }
+
+    /**
+     * Returns a set containing the values of this set except the given value.
+     *
+     * @param value The value to remove.
+     * @return This set if it does not contain the value, a new set otherwise.
+     */
+    public SortedLongSet without(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+
+        long[] newValues = new long[values.length - 1];
+        System.arraycopy(values, 0, newValues, 0, index);
+        System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+        return new SortedLongSet(newValues);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Returns a copy of the values of this set in ascending order.
+     *
+     * @return The values of the set.
+     */
+    public long[] toArray() {
+        return values.clone();
+    }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.p6.configuration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.openclassrooms.p6.model.Users;
+import com.openclassrooms.p6.repository.UserRepository;
+import com.openclassrooms.p6.service.UserService;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+/**
+ * Revocation of the tokens by a password change, checked once by the filter
+ * for every protected endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    private Users user;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = new Users();
+        user.setUsername("user-" + suffix);
+        user.setEmail(suffix + "@mdd.test");
+        user.setPassword("password");
+        user = userRepository.save(user);
+
+        token = "Bearer " + jwtUtil.generateJwtToken(user.getId());
+    }
+
+    @Test
+    void tokenIssuedBeforeAPasswordChangeIsRejectedEverywhere() throws Exception {
+        mockMvc.perform(get("/api/users").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/articles").header("Authorization", token)).andExpect(status().isOk());
+
+        // Le changement est daté après l'émission du jeton, tronquée à la seconde
+        user.setPasswordChangedAt(LocalDateTime.now().plusSeconds(2));
+        userService.saveUser(user);
+
+        mockMvc.perform(get("/api/users").header("Authorization", token)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/articles").header("Authorization", token)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/themes").header("Authorization", token)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void tokenOfADeletedUserIsRejected() throws Exception {
+        userService.deleteUser(user.getId());
+
+        mockMvc.perform(get("/api/users").header("Authorization", token)).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,121 @@
+package com.openclassrooms.p6.configuration.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.p6.event.CommentPostedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Routes between two in-memory databases, the primary of the tests and a
+ * replica whose lag is read from a table.
+ */
+@SpringBootTest(properties = {
+        "datasource.replicas.enabled=true",
+        "datasource.replicas.urls=jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.replicas.lag-query=SELECT lag_seconds FROM replica_lag",
+        "datasource.replicas.max-lag=2s",
+        "datasource.replicas.health-check-interval-ms=3600000"
+})
+class ReplicaRoutingTests {
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        setReplicaLag(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(currentDatabase(true)).isEqualTo("replica");
+        assertThat(meterRegistry.get("datasource.replicas.healthy").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void readWriteTransactionsUseThePrimary() {
+        assertThat(currentDatabase(false)).isEqualTo("mdd");
+    }
+
+    @Test
+    void primaryScopeOverridesTheReplica() {
+        assertThat(DataSourceRouting.readFromPrimary(() -> currentDatabase(true))).isEqualTo("mdd");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() throws Exception {
+        setReplicaLag(60);
+
+        assertThat(currentDatabase(true)).isEqualTo("mdd");
+        assertThat(meterRegistry.get("datasource.replicas.healthy").gauge().value()).isZero();
+    }
+
+    @Test
+    void userReadsThePrimaryAfterPostingAComment() {
+        eventPublisher.publishEvent(new CommentPostedEvent(1L, 1L, 42L));
+
+        authenticate("42");
+        assertThat(currentDatabase(true)).isEqualTo("mdd");
+
+        authenticate("7");
+        assertThat(currentDatabase(true)).isEqualTo("replica");
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> String.valueOf(
+                entityManager.createNativeQuery("SELECT DATABASE()").getSingleResult()).toLowerCase());
+    }
+
+    private void setReplicaLag(int lagSeconds) throws Exception {
+        try (Connection connection = replicaSet.getReplicas().get("replica-1").getConnection();
+                Statement statement = connection.createStatement()) {
+            connection.setReadOnly(false);
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds INT)");
+            statement.execute("DELETE FROM replica_lag");
+            statement.execute("INSERT INTO replica_lag VALUES (" + lagSeconds + ")");
+            connection.commit();
+        }
+        replicaSet.checkReplicas();
+    }
+
+    private static void authenticate(String userId) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userId, null, List.of()));
+    }
+}
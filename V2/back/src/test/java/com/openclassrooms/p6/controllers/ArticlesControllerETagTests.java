@@ -0,0 +1,146 @@
+package com.openclassrooms.p6.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.model.Subscriptions;
+import com.openclassrooms.p6.model.Themes;
+import com.openclassrooms.p6.model.Users;
+import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.repository.SubscriptionRepository;
+import com.openclassrooms.p6.repository.ThemeRepository;
+import com.openclassrooms.p6.repository.UserRepository;
+import com.openclassrooms.p6.service.UserService;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+/**
+ * Entity tags of the article list and detail, derived from the persisted rows,
+ * with a reader subscribed to the theme of an article of another author.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArticlesControllerETagTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private String suffix;
+
+    private Users author;
+
+    private Users bystander;
+
+    private String token;
+
+    private Long articleId;
+
+    @BeforeEach
+    void setUp() {
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        Users reader = createUser("reader");
+        author = createUser("author");
+        bystander = createUser("bystander");
+
+        Themes theme = new Themes();
+        theme.setTitle("Theme " + suffix);
+        theme = themeRepository.save(theme);
+
+        Subscriptions subscription = new Subscriptions();
+        subscription.setUserId(reader.getId());
+        subscription.setThemeId(theme.getId());
+        subscription.setIsSubscribed(true);
+        subscriptionRepository.save(subscription);
+
+        Articles article = new Articles();
+        article.setUserId(author.getId());
+        article.setThemeId(theme.getId());
+        article.setTitle("Article " + suffix);
+        article.setDescription("Description");
+        article.setContent("Content");
+        articleId = articleRepository.save(article).getId();
+
+        token = "Bearer " + jwtUtil.generateJwtToken(reader.getId());
+    }
+
+    @Test
+    void listTagIsStrongAndRevalidated() throws Exception {
+        String etag = etag("/api/articles");
+
+        assertThat(etag).startsWith("\"");
+        assertThat(etag("/api/articles")).isEqualTo(etag);
+        mockMvc.perform(get("/api/articles").header("Authorization", token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void listTagOnlyChangesWithTheUsersItShows() throws Exception {
+        String etag = etag("/api/articles");
+
+        bystander.setUsername("renamed-bystander-" + suffix);
+        userService.saveUser(bystander);
+        assertThat(etag("/api/articles")).isEqualTo(etag);
+
+        author.setUsername("renamed-author-" + suffix);
+        userService.saveUser(author);
+        assertThat(etag("/api/articles")).isNotEqualTo(etag);
+    }
+
+    @Test
+    void articleTagChangesWithANewComment() throws Exception {
+        String etag = etag("/api/articles/" + articleId);
+
+        mockMvc.perform(post("/api/articles/comment/").param("articleId", articleId.toString())
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"comment\":\"Commentaire\"}"))
+                .andExpect(status().isCreated());
+
+        assertThat(etag("/api/articles/" + articleId)).isNotEqualTo(etag);
+    }
+
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private Users createUser(String name) {
+        Users user = new Users();
+        user.setUsername(name + "-" + suffix);
+        user.setEmail(name + "-" + suffix + "@mdd.test");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,214 @@
+package com.openclassrooms.p6.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.model.Comments;
+import com.openclassrooms.p6.model.Subscriptions;
+import com.openclassrooms.p6.model.Themes;
+import com.openclassrooms.p6.model.Users;
+import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.repository.CommentRepository;
+import com.openclassrooms.p6.repository.SubscriptionRepository;
+import com.openclassrooms.p6.repository.ThemeRepository;
+import com.openclassrooms.p6.repository.UserRepository;
+import com.openclassrooms.p6.service.ResourceVersionService;
+import com.openclassrooms.p6.service.UserService;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Guards the read endpoints of {@link ArticlesController} against N+1 queries
+ * by asserting the number of SQL statements each request prepares.
+ *
+ * <p>
+ * The dataset uses a distinct author per article and per comment so that any
+ * association resolved row by row shows up as extra statements.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArticlesControllerQueryCountTests {
+
+    private static final int AUTHORS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    private Statistics statistics;
+
+    private String token;
+
+    private Long articleId;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAll();
+        articleRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        themeRepository.deleteAll();
+        userRepository.deleteAll();
+
+        List<Users> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            authors.add(createUser("author" + i));
+        }
+        Users reader = authors.get(0);
+
+        Themes theme = new Themes();
+        theme.setTitle("Java");
+        theme = themeRepository.save(theme);
+
+        Subscriptions subscription = new Subscriptions();
+        subscription.setUserId(reader.getId());
+        subscription.setThemeId(theme.getId());
+        subscription.setIsSubscribed(true);
+        subscriptionRepository.save(subscription);
+
+        for (Users author : authors) {
+            Articles article = new Articles();
+            article.setUserId(author.getId());
+            article.setThemeId(theme.getId());
+            article.setTitle("Article by " + author.getUsername());
+            article.setDescription("Description");
+            article.setContent("Content");
+            articleId = articleRepository.save(article).getId();
+        }
+
+        for (Users author : authors) {
+            Comments comment = new Comments();
+            comment.setUserId(author.getId());
+            comment.setArticleId(articleId);
+            comment.setComment("Comment by " + author.getUsername());
+            commentRepository.save(comment);
+        }
+
+        token = "Bearer " + jwtUtil.generateJwtToken(reader.getId());
+        // Le filtre JWT et les tags lisent l'état d'autorisation, les abonnements et les
+        // versions en cache, chargés une fois par utilisateur, thème et article
+        userService.getUserAuthState(reader.getId());
+        resourceVersionService.getArticlesETag(reader.getId());
+        resourceVersionService.getArticleETag(reader.getId(), articleId);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllArticlesIssuesSingleStatement() throws Exception {
+        mockMvc.perform(get("/api/articles").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getFeedIssuesSingleStatement() throws Exception {
+        mockMvc.perform(get("/api/articles/feed").param("size", "2").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getArticleByIdIssuesConstantStatements() throws Exception {
+        mockMvc.perform(get("/api/articles/{id}", articleId).header("Authorization", token))
+                .andExpect(status().isOk());
+
+        // article with author and theme, first page of comments with authors
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getArticleCommentsIssuesConstantStatements() throws Exception {
+        mockMvc.perform(get("/api/articles/{id}/comments", articleId).param("size", "2")
+                .header("Authorization", token))
+                .andExpect(status().isOk());
+
+        // article, page of comments with authors
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sqlMetricsAreAttributedToTheControllerMethod() throws Exception {
+        DistributionSummary statements = meterRegistry.summary("sql.request.statements",
+                "endpoint", "ArticlesController.getArticleComments");
+        DistributionSummary rows = meterRegistry.summary("sql.request.rows",
+                "endpoint", "ArticlesController.getArticleComments");
+        double statementsBefore = statements.totalAmount();
+        double rowsBefore = rows.totalAmount();
+
+        mockMvc.perform(get("/api/articles/{id}/comments", articleId).param("size", "2")
+                .header("Authorization", token))
+                .andExpect(status().isOk());
+
+        // article, page of two comments plus the row telling there is a next page
+        assertThat(statements.totalAmount() - statementsBefore).isEqualTo(2);
+        assertThat(rows.totalAmount() - rowsBefore).isEqualTo(4);
+    }
+
+    @Test
+    void connectionHoldTimeIsRecorded() throws Exception {
+        Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        long checkoutsBefore = usage.count();
+
+        mockMvc.perform(get("/api/articles/{id}/comments", articleId).header("Authorization", token))
+                .andExpect(status().isOk());
+
+        assertThat(usage.count()).isGreaterThan(checkoutsBefore);
+    }
+
+    private Users createUser(String username) {
+        Users user = new Users();
+        user.setUsername(username);
+        user.setEmail(username + "@mdd.test");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+}
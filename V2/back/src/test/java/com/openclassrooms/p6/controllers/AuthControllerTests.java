@@ -0,0 +1,75 @@
+package com.openclassrooms.p6.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.payload.request.RegisterRequest;
+
+/**
+ * Errors of the registration, whose conflicts are detected by the unique
+ * constraints of the users table.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+    private static final String PASSWORD = "Password1!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String username;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        username = "user-" + suffix;
+        email = suffix + "@example.com";
+
+        register(username, email).andExpect(status().isCreated());
+    }
+
+    @Test
+    void duplicateUsernameIsReported() throws Exception {
+        register(username, "other-" + email)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Username is already in use"));
+    }
+
+    @Test
+    void duplicateEmailIsReported() throws Exception {
+        register("other-" + username, email)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Email is already in use"));
+    }
+
+    @Test
+    void usernameLongerThanItsColumnIsRejected() throws Exception {
+        register("u".repeat(51), "long-" + email)
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions register(String username, String email) throws Exception {
+        return mockMvc.perform(post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RegisterRequest(email, username, PASSWORD))));
+    }
+}
@@ -0,0 +1,60 @@
+package com.openclassrooms.p6.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.p6.utils.PageCursor;
+
+class FeedRingTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void newEntriesGoFirstAndTheOldestIsDroppedWhenFull() {
+        FeedRing ring = new FeedRing(3, List.of(entry(2, 2), entry(1, 1)), true);
+
+        ring.add(entry(3, 3));
+        assertThat(articleIds(ring.page(null, 10))).containsExactly(3L, 2L, 1L);
+        assertThat(ring.isComplete()).isTrue();
+
+        ring.add(entry(4, 4));
+        assertThat(articleIds(ring.page(null, 10))).containsExactly(4L, 3L, 2L);
+        assertThat(ring.isComplete()).isFalse();
+    }
+
+    @Test
+    void lateEntriesAreInsertedInFeedOrder() {
+        FeedRing ring = new FeedRing(3, List.of(entry(5, 5), entry(1, 1)), true);
+
+        ring.add(entry(3, 3));
+        ring.add(entry(3, 3));
+        ring.add(entry(0, 0));
+
+        assertThat(articleIds(ring.page(null, 10))).containsExactly(5L, 3L, 1L);
+        assertThat(ring.isComplete()).isFalse();
+    }
+
+    @Test
+    void pagesStartStrictlyAfterTheCursor() {
+        FeedRing ring = new FeedRing(10, List.of(), true);
+        for (int i = 1; i <= 5; i++) {
+            ring.add(entry(i, i));
+        }
+        assertThat(ring.remove(4)).isTrue();
+
+        assertThat(articleIds(ring.page(new PageCursor(NOW.plusMinutes(5), 5L), 2))).containsExactly(3L, 2L);
+        assertThat(articleIds(ring.page(new PageCursor(NOW.plusMinutes(2), 2L), 2))).containsExactly(1L);
+    }
+
+    private static FeedEntry entry(long articleId, int minutes) {
+        return new FeedEntry(articleId, NOW.plusMinutes(minutes));
+    }
+
+    private static List<Long> articleIds(List<FeedEntry> entries) {
+        return entries.stream().map(FeedEntry::articleId).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.openclassrooms.p6.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommentLogTests {
+
+    @Test
+    void recoverReturnsTheAppendedCommentsInOrder(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("comments.wal");
+        PendingComment first = comment("Premier commentaire");
+        PendingComment second = comment("Deuxième, accentué");
+
+        try (CommentLog log = CommentLog.open(path)) {
+            log.recover();
+            log.sync(log.append(first));
+            log.sync(log.append(second));
+        }
+
+        try (CommentLog log = CommentLog.open(path)) {
+            assertThat(log.recover()).containsExactly(recovered(first), recovered(second));
+        }
+    }
+
+    @Test
+    void recoverDropsATornTail(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("comments.wal");
+        PendingComment first = comment("Intact");
+
+        try (CommentLog log = CommentLog.open(path)) {
+            log.recover();
+            log.append(first);
+            log.append(comment("Tronqué"));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        PendingComment third = comment("Après reprise");
+        try (CommentLog log = CommentLog.open(path)) {
+            assertThat(log.recover()).containsExactly(recovered(first));
+            log.append(third);
+        }
+
+        try (CommentLog log = CommentLog.open(path)) {
+            assertThat(log.recover()).containsExactly(recovered(first), recovered(third));
+        }
+    }
+
+    @Test
+    void resetEmptiesTheLog(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("comments.wal");
+
+        try (CommentLog log = CommentLog.open(path)) {
+            log.recover();
+            log.append(comment("Déjà enregistré"));
+            log.reset();
+        }
+
+        try (CommentLog log = CommentLog.open(path)) {
+            assertThat(log.recover()).isEmpty();
+        }
+    }
+
+    private static PendingComment comment(String text) {
+        return new PendingComment(UUID.randomUUID(), 1L, 2L, text, false);
+    }
+
+    private static PendingComment recovered(PendingComment comment) {
+        return new PendingComment(comment.ingestId(), comment.userId(), comment.articleId(), comment.comment(), true);
+    }
+}
@@ -0,0 +1,151 @@
+package com.openclassrooms.p6.realtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.event.CommentPostedEvent;
+
+class UpdatesBroadcasterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UpdatesSessionRegistry sessionRegistry;
+    private UpdatesBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        sessionRegistry = new UpdatesSessionRegistry();
+        ReflectionTestUtils.setField(sessionRegistry, "sendTimeLimit", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(sessionRegistry, "bufferSizeLimit", 512 * 1024);
+        ReflectionTestUtils.setField(sessionRegistry, "maxTopicsPerSession", 200);
+
+        broadcaster = new UpdatesBroadcaster(sessionRegistry, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void updatesOfAFlushAreCoalescedPerTopic() throws Exception {
+        WebSocketSession session = connect("session-1", 1L);
+        WebSocketSession otherSession = connect("session-2", 2L);
+        sessionRegistry.subscribe("session-1", new Topic(Topic.Kind.THEME, 3), 3L);
+        sessionRegistry.subscribe("session-1", new Topic(Topic.Kind.ARTICLE, 10), 3L);
+        sessionRegistry.subscribe("session-2", new Topic(Topic.Kind.THEME, 4), 4L);
+
+        broadcaster.onArticlePublished(articlePublished(100L, 3L));
+        broadcaster.onCommentPosted(new CommentPostedEvent(1000L, 10L, 2L));
+        broadcaster.onArticlePublished(articlePublished(101L, 3L));
+        broadcaster.onCommentPosted(new CommentPostedEvent(1001L, 10L, 2L));
+        broadcaster.onCommentPosted(new CommentPostedEvent(1001L, 10L, 2L));
+        broadcaster.onCommentPosted(new CommentPostedEvent(2000L, 20L, 2L));
+        broadcaster.flush();
+
+        List<JsonNode> messages = receive(session, 2);
+        assertThat(messages).anySatisfy(message -> {
+            assertThat(message.get("type").asText()).isEqualTo("articles");
+            assertThat(message.get("themeId").asLong()).isEqualTo(3L);
+            assertThat(ids(message.get("articleIds"))).containsExactly(100L, 101L);
+        });
+        assertThat(messages).anySatisfy(message -> {
+            assertThat(message.get("type").asText()).isEqualTo("comments");
+            assertThat(message.get("articleId").asLong()).isEqualTo(10L);
+            assertThat(ids(message.get("commentIds"))).containsExactly(1000L, 1001L);
+        });
+
+        broadcaster.shutdown();
+        verify(otherSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void messageKeepsTheMostRecentIdentifiers() throws Exception {
+        WebSocketSession session = connect("session-1", 1L);
+        sessionRegistry.subscribe("session-1", new Topic(Topic.Kind.ARTICLE, 10), 3L);
+
+        LongStream.rangeClosed(1, 150).forEach(commentId ->
+                broadcaster.onCommentPosted(new CommentPostedEvent(commentId, 10L, 2L)));
+        broadcaster.flush();
+
+        JsonNode message = receive(session, 1).get(0);
+        assertThat(ids(message.get("commentIds")))
+                .containsExactlyElementsOf(LongStream.rangeClosed(51, 150).boxed().toList());
+    }
+
+    @Test
+    void updatesAreSentOnlyOnce() throws Exception {
+        WebSocketSession session = connect("session-1", 1L);
+        sessionRegistry.subscribe("session-1", new Topic(Topic.Kind.THEME, 3), 3L);
+
+        broadcaster.onArticlePublished(articlePublished(100L, 3L));
+        broadcaster.flush();
+        broadcaster.flush();
+
+        broadcaster.shutdown();
+        verify(session, times(1)).sendMessage(any());
+    }
+
+    private WebSocketSession connect(String sessionId, Long userId) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, userId);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+
+        sessionRegistry.register(session);
+        return session;
+    }
+
+    private List<JsonNode> receive(WebSocketSession session, int count) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> messages = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, timeout(1000).times(count)).sendMessage(messages.capture());
+
+        return messages.getAllValues().stream()
+                .map(message -> {
+                    try {
+                        return objectMapper.readTree(((TextMessage) message).getPayload());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private static List<Long> ids(JsonNode array) {
+        return StreamSupport.stream(array.spliterator(), false).map(JsonNode::asLong).toList();
+    }
+
+    private static ArticlePublishedEvent articlePublished(Long articleId, Long themeId) {
+        return new ArticlePublishedEvent(articleId, themeId, 2L, LocalDateTime.now(), "Titre", "Description", "Contenu");
+    }
+}
@@ -0,0 +1,237 @@
+package com.openclassrooms.p6.realtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.p6.event.SubscriptionChangedEvent;
+import com.openclassrooms.p6.event.UserUpdatedEvent;
+import com.openclassrooms.p6.exception.ApiException;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.service.ArticleService;
+import com.openclassrooms.p6.service.AuthService;
+import com.openclassrooms.p6.service.SubscriptionsService;
+import com.openclassrooms.p6.utils.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Authentication and authorization of the push channel, with a user
+ * subscribed to themes 3 and 5 but not to theme 4.
+ */
+class UpdatesWebSocketHandlerTests {
+
+    private static final long USER_ID = 1L;
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final AuthService authService = mock(AuthService.class);
+    private final SubscriptionsService subscriptionsService = mock(SubscriptionsService.class);
+    private final ArticleService articleService = mock(ArticleService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Claims claims = Jwts.claims().setSubject(String.valueOf(USER_ID)).setIssuedAt(new Date());
+
+    private UpdatesSessionRegistry sessionRegistry;
+    private JwtHandshakeInterceptor handshakeInterceptor;
+    private UpdatesWebSocketHandler handler;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        sessionRegistry = new UpdatesSessionRegistry();
+        ReflectionTestUtils.setField(sessionRegistry, "sendTimeLimit", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(sessionRegistry, "bufferSizeLimit", 512 * 1024);
+        ReflectionTestUtils.setField(sessionRegistry, "maxTopicsPerSession", 3);
+
+        handshakeInterceptor = new JwtHandshakeInterceptor(jwtUtil, authService);
+        handler = new UpdatesWebSocketHandler(
+                sessionRegistry, handshakeInterceptor, subscriptionsService, articleService, objectMapper);
+
+        when(jwtUtil.parseVerifiedClaims("valid")).thenReturn(Optional.of(claims));
+        when(jwtUtil.parseVerifiedClaims("forged")).thenReturn(Optional.empty());
+        when(authService.getAuthenticatedUserId(any())).thenReturn(USER_ID);
+        when(subscriptionsService.isUserSubscribedToTheme(USER_ID, 3L)).thenReturn(true);
+        when(subscriptionsService.isUserSubscribedToTheme(USER_ID, 5L)).thenReturn(true);
+        when(articleService.getArticleById(10L)).thenReturn(Optional.of(article(3L)));
+        when(articleService.getArticleById(11L)).thenReturn(Optional.of(article(4L)));
+        when(articleService.getArticleById(12L)).thenReturn(Optional.of(article(3L)));
+
+        session = connect("session-1");
+    }
+
+    @Test
+    void handshakeWithoutAcceptedTokenIsRejected() {
+        assertThat(handshake(null)).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        assertThat(handshake("forged")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+
+        when(authService.getAuthenticatedUserId(any())).thenThrow(revokedToken());
+        assertThat(handshake("valid")).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+    }
+
+    @Test
+    void handshakeStoresTheUserAndTheClaims() {
+        Map<String, Object> attributes = new HashMap<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean accepted = handshakeInterceptor.beforeHandshake(request("valid"),
+                new ServletServerHttpResponse(response), handler, attributes);
+
+        assertThat(accepted).isTrue();
+        assertThat(attributes)
+                .containsEntry(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, USER_ID)
+                .containsEntry(JwtHandshakeInterceptor.CLAIMS_ATTRIBUTE, claims);
+    }
+
+    @Test
+    void topicsAreOnlyGrantedBySubscribedThemes() throws Exception {
+        send(session, "subscribe", "theme", 3);
+        send(session, "subscribe", "theme", 4);
+        send(session, "subscribe", "article", 10);
+        send(session, "subscribe", "article", 11);
+        send(session, "subscribe", "article", 99);
+
+        assertThat(replies(session)).containsExactly(
+                "ack", "You must be subscribed to this theme", "ack",
+                "You must be subscribed to this theme", "You must be subscribed to this theme");
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.THEME, 3))).hasSize(1);
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.ARTICLE, 10))).hasSize(1);
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.THEME, 4))).isEmpty();
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.ARTICLE, 11))).isEmpty();
+    }
+
+    @Test
+    void sessionFollowsAtMostTheMaximumNumberOfTopics() throws Exception {
+        send(session, "subscribe", "theme", 3);
+        send(session, "subscribe", "theme", 5);
+        send(session, "subscribe", "article", 10);
+        send(session, "subscribe", "article", 12);
+        send(session, "subscribe", "theme", 3);
+        send(session, "unsubscribe", "theme", 5);
+        send(session, "subscribe", "article", 12);
+
+        assertThat(replies(session)).containsExactly(
+                "ack", "ack", "ack", "Too many topics", "ack", "ack", "ack");
+    }
+
+    @Test
+    void unsubscribingFromAThemeDropsTheTopicsItGranted() throws Exception {
+        WebSocketSession otherSession = connect("session-2");
+        send(session, "subscribe", "theme", 3);
+        send(session, "subscribe", "article", 10);
+        send(session, "subscribe", "theme", 5);
+        send(otherSession, "subscribe", "article", 12);
+
+        handler.onSubscriptionChanged(new SubscriptionChangedEvent(USER_ID, 3L, false));
+
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.THEME, 3))).isEmpty();
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.ARTICLE, 10))).isEmpty();
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.ARTICLE, 12))).isEmpty();
+        assertThat(sessionRegistry.getSessions(new Topic(Topic.Kind.THEME, 5))).hasSize(1);
+    }
+
+    @Test
+    void sessionsAreClosedOnceTheTokenIsRevoked() throws Exception {
+        handler.onUserUpdated(new UserUpdatedEvent(USER_ID));
+        verify(session, never()).close(any());
+
+        when(authService.getAuthenticatedUserId(any())).thenThrow(revokedToken());
+        handler.onUserUpdated(new UserUpdatedEvent(USER_ID));
+
+        verify(session).close(CloseStatus.POLICY_VIOLATION.withReason("Token revoked"));
+    }
+
+    private WebSocketSession connect(String sessionId) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, USER_ID);
+        attributes.put(JwtHandshakeInterceptor.CLAIMS_ATTRIBUTE, claims);
+
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn(sessionId);
+        when(webSocketSession.getAttributes()).thenReturn(attributes);
+        when(webSocketSession.isOpen()).thenReturn(true);
+
+        handler.afterConnectionEstablished(webSocketSession);
+        return webSocketSession;
+    }
+
+    private void send(WebSocketSession webSocketSession, String action, String topic, long id) throws Exception {
+        handler.handleTextMessage(webSocketSession, new TextMessage(objectMapper.writeValueAsString(
+                new UpdateMessages.SubscriptionRequest(action, topic, id))));
+    }
+
+    /**
+     * @return The type of each acknowledgement, or the message of each error.
+     */
+    private List<String> replies(WebSocketSession webSocketSession) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> messages = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(webSocketSession, atLeast(0)).sendMessage(messages.capture());
+
+        return messages.getAllValues().stream()
+                .map(message -> {
+                    try {
+                        var reply = objectMapper.readTree((String) message.getPayload());
+                        return reply.has("message") ? reply.get("message").asText() : reply.get("type").asText();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private int handshake(String token) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean accepted = handshakeInterceptor.beforeHandshake(request(token),
+                new ServletServerHttpResponse(response), handler, new HashMap<>());
+
+        assertThat(accepted).isFalse();
+        return response.getStatus();
+    }
+
+    private static ServletServerHttpRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/updates");
+        if (token != null) {
+            request.setQueryString("token=" + token);
+        }
+        return new ServletServerHttpRequest(request);
+    }
+
+    private static ApiException revokedToken() {
+        return new ApiException("Invalid JWT token", List.of("Token was issued before the last password change"),
+                HttpStatus.UNAUTHORIZED, LocalDateTime.now());
+    }
+
+    private static Articles article(Long themeId) {
+        Articles article = new Articles();
+        article.setThemeId(themeId);
+        return article;
+    }
+}
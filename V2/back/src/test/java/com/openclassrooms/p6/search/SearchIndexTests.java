@@ -0,0 +1,67 @@
+package com.openclassrooms.p6.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchIndexTests {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex();
+        index.add(1L, 10L, "Découvrir Java", "Les bases du langage", "Classes, interfaces et génériques.");
+        index.add(2L, 10L, "Angular et RxJS", "Programmation réactive", "Un peu de Java côté serveur.");
+        index.add(3L, 20L, "Java avancé", "Threads virtuels", "Java 21 apporte les threads virtuels.");
+    }
+
+    @Test
+    void searchFoldsAccentsAndRanksTitleMatchesFirst() {
+        assertThat(articleIds(index.search("generiques", themeId -> true, 10))).containsExactly(1L);
+        assertThat(articleIds(index.search("JAVA", themeId -> true, 10))).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void searchOnlyReturnsAcceptedThemesUpToTheLimit() {
+        assertThat(articleIds(index.search("java", themeId -> themeId == 10L, 10))).containsExactly(1L, 2L);
+        assertThat(articleIds(index.search("java", themeId -> true, 1))).containsExactly(3L);
+        assertThat(index.search("le et", themeId -> true, 10)).isEmpty();
+    }
+
+    @Test
+    void removedArticlesAreNoLongerFound() {
+        assertThat(index.remove(3L)).isTrue();
+
+        assertThat(articleIds(index.search("threads java", themeId -> true, 10))).containsExactly(1L, 2L);
+        assertThat(index.remove(3L)).isFalse();
+    }
+
+    @Test
+    void segmentRoundTripPreservesResults(@TempDir Path directory) throws Exception {
+        Path segment = directory.resolve("search-index.seg");
+        index.writeTo(segment);
+
+        SearchIndex reloaded = new SearchIndex();
+        reloaded.loadFrom(segment);
+        reloaded.remove(1L);
+
+        assertThat(reloaded.size()).isEqualTo(2);
+        assertThat(reloaded.search("java", themeId -> true, 10))
+                .isEqualTo(withoutFirstArticle(index));
+    }
+
+    private static List<SearchHit> withoutFirstArticle(SearchIndex index) {
+        index.remove(1L);
+        return index.search("java", themeId -> true, 10);
+    }
+
+    private static List<Long> articleIds(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::articleId).toList();
+    }
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.p6.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.p6.event.ArticleDeletedEvent;
+import com.openclassrooms.p6.event.ArticlePublishedEvent;
+import com.openclassrooms.p6.model.Articles;
+import com.openclassrooms.p6.repository.ArticleRepository;
+import com.openclassrooms.p6.search.SearchIndex;
+
+/**
+ * Article events received while the startup rebuild reads the articles table.
+ */
+class ArticleSearchServiceTests {
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+    private ArticleSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ArticleSearchService();
+        ReflectionTestUtils.setField(service, "articleRepository", articleRepository);
+        ReflectionTestUtils.setField(service, "indexPath", "");
+
+        when(articleRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+    }
+
+    @Test
+    void articleDeletedDuringTheRebuildStaysDeleted() {
+        when(articleRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            // Supprimé une fois le lot lu, avant que le lot soit indexé
+            service.onArticleDeleted(new ArticleDeletedEvent(1L, 10L));
+            return List.of(article(1L), article(2L));
+        });
+
+        service.buildIndex();
+
+        assertThat(index().documentIds()).containsExactly(2L);
+    }
+
+    @Test
+    void articlePublishedDuringTheRebuildIsIndexed() {
+        when(articleRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            // Publié après la lecture des identifiants
+            service.onArticlePublished(new ArticlePublishedEvent(
+                    3L, 10L, 2L, LocalDateTime.now(), "Titre", "Description", "Contenu"));
+            return List.of(article(1L), article(2L));
+        });
+
+        service.buildIndex();
+
+        assertThat(index().documentIds()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void eventsAfterTheRebuildAreAppliedDirectly() {
+        when(articleRepository.findAllById(anyIterable())).thenReturn(List.of(article(1L), article(2L)));
+        service.buildIndex();
+
+        service.onArticleDeleted(new ArticleDeletedEvent(2L, 10L));
+
+        assertThat(index().documentIds()).containsExactly(1L);
+    }
+
+    private SearchIndex index() {
+        return (SearchIndex) ReflectionTestUtils.getField(service, "index");
+    }
+
+    private static Articles article(Long id) {
+        Articles article = new Articles();
+        article.setId(id);
+        article.setThemeId(10L);
+        article.setTitle("Article " + id);
+        article.setDescription("Description");
+        article.setContent("Contenu");
+        return article;
+    }
+}
@@ -0,0 +1,158 @@
+package com.openclassrooms.p6.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.p6.event.CommentPostedEvent;
+import com.openclassrooms.p6.ingest.CommentLog;
+import com.openclassrooms.p6.ingest.PendingComment;
+import com.openclassrooms.p6.model.Comments;
+import com.openclassrooms.p6.repository.CommentRepository;
+
+class CommentWriteBehindServiceTests {
+
+    @TempDir
+    private Path directory;
+
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Comments the mocked repository holds, as the database would.
+     */
+    private final List<Comments> database = new ArrayList<>();
+
+    private CommentWriteBehindService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(commentRepository.saveAll(anyList())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        when(commentRepository.findAllByIngestIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<String> ingestIds = List.copyOf(invocation.getArgument(0));
+            return database.stream().filter(comment -> ingestIds.contains(comment.getIngestId())).toList();
+        });
+
+        service = newService();
+        service.openLog();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.closeLog();
+    }
+
+    @Test
+    void flushPersistsInBatchesAndPublishesEachComment() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(service.submit(1L, 10L, "Commentaire " + i)).isTrue();
+        }
+
+        service.flush();
+
+        verify(commentRepository, times(3)).saveAll(anyList());
+        assertThat(database).hasSize(5);
+        assertThat(publishedEvents()).hasSize(5);
+        assertThat(Files.size(logPath())).isZero();
+    }
+
+    @Test
+    void batchFailingAfterCommitIsNotDroppedOnRetry() {
+        when(commentRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    store(invocation.getArgument(0));
+                    throw new QueryTimeoutException("Connection lost after commit");
+                })
+                .thenAnswer(invocation -> store(invocation.getArgument(0)));
+        service.submit(1L, 10L, "Premier");
+        service.submit(2L, 10L, "Second");
+
+        service.flush();
+        assertThat(publishedEvents()).isEmpty();
+
+        service.flush();
+
+        assertThat(database).hasSize(2);
+        verify(commentRepository, never()).save(any());
+        assertThat(publishedEvents())
+                .extracting(CommentPostedEvent::userId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void replayedCommentsAlreadyPersistedAreOnlyPublished() throws Exception {
+        service.closeLog();
+        PendingComment persisted = new PendingComment(UUID.randomUUID(), 1L, 10L, "Déjà en base", false);
+        PendingComment lost = new PendingComment(UUID.randomUUID(), 2L, 10L, "Pas encore", false);
+        try (CommentLog log = CommentLog.open(logPath())) {
+            log.recover();
+            log.append(persisted);
+            log.sync(log.append(lost));
+        }
+        // Arrêt brutal entre la validation du lot et le vidage du journal
+        store(List.of(persisted.toEntity()));
+
+        service = newService();
+        service.openLog();
+        service.flush();
+
+        assertThat(database).extracting(Comments::getIngestId)
+                .containsExactly(persisted.ingestId().toString(), lost.ingestId().toString());
+        assertThat(publishedEvents()).extracting(CommentPostedEvent::userId).containsExactly(1L, 2L);
+    }
+
+    private CommentWriteBehindService newService() {
+        CommentWriteBehindService writeBehind = new CommentWriteBehindService();
+        ReflectionTestUtils.setField(writeBehind, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(writeBehind, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(writeBehind, "logPath", logPath());
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 2);
+        ReflectionTestUtils.setField(writeBehind, "maxPending", 100);
+        return writeBehind;
+    }
+
+    private Path logPath() {
+        return directory.resolve("comments.wal");
+    }
+
+    private List<Comments> store(List<Comments> comments) {
+        comments.forEach(comment -> comment.setId(nextId.getAndIncrement()));
+        database.addAll(comments);
+        return comments;
+    }
+
+    private List<CommentPostedEvent> publishedEvents() {
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeast(0)).publishEvent(events.capture());
+        return events.getAllValues().stream()
+                .filter(CommentPostedEvent.class::isInstance)
+                .map(CommentPostedEvent.class::cast)
+                .toList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.p6.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ETagsTests {
+
+    @Test
+    void tagsDependOnEveryComponent() {
+        assertThat(ETags.of(1, 2, 3)).isEqualTo(ETags.of(1, 2, 3));
+        assertThat(ETags.of(1, 2, 3)).isNotEqualTo(ETags.of(1, 3, 2));
+        assertThat(ETags.of(1, 2, 3)).startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparisonAndIgnoresTheWildcard() {
+        String etag = ETags.of(42);
+
+        assertThat(ETags.matches(etag, etag)).isTrue();
+        assertThat(ETags.matches("\"other\", W/" + etag, etag)).isTrue();
+        assertThat(ETags.matches("\"other\"", etag)).isFalse();
+        assertThat(ETags.matches("*", etag)).isFalse();
+        assertThat(ETags.matches(null, etag)).isFalse();
+    }
+
+    @Test
+    void gzippedAndWeakVariantsMatchTheirTag() {
+        String etag = ETags.of(42);
+
+        assertThat(ETags.forGzip(etag)).isNotEqualTo(etag).startsWith("\"").endsWith("-gzip\"");
+        assertThat(ETags.matches(ETags.forGzip(etag), etag)).isTrue();
+        assertThat(ETags.matches(etag, "W/" + etag)).isTrue();
+        assertThat(ETags.matches(ETags.forGzip(ETags.of(43)), etag)).isFalse();
+    }
+}